@@ -0,0 +1,44 @@
+package interpreter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jol.info.GraphLayout;
+
+// Compares building the object AST with building an AstArena. The GC profiler gives bytes allocated per parse,
+// main() prints the heap each form keeps alive afterwards
+public class AstMemoryBenchmark extends ProgramBenchmark {
+    private TokenStream tokens;
+
+    @Setup
+    public void setUp() {
+        tokens = PackedLexer.tokenize(generateSource());
+    }
+
+    @Benchmark
+    public AST objects() {
+        return new Parser(tokens).program();
+    }
+
+    @Benchmark
+    public AstArena arena() {
+        return new Parser(tokens).programArena();
+    }
+
+    // Prints retained size of each form for a range of program sizes. Run with: gradle :benchmarks:astMemory
+    public static void main(String[] args) {
+        System.out.printf("%10s %6s %10s %16s %16s %16s %8s%n", "statements", "depth", "source",
+                "objects/classic", "objects/packed", "arena", "ratio");
+        for (int statements : new int[] {1000, 10000, 100000}) {
+            for (int depth : new int[] {4, 32}) {
+                String source = new ProgramGenerator(3160).generate(statements, depth, 4096);
+                // Classic lexer: every node keeps its own Token and String
+                long classic = GraphLayout.parseInstance(new Parser(new Lexer(source)).program()).totalSize();
+                // Packed lexer: nodes share one Token per symbol and literal
+                long packed = GraphLayout.parseInstance(new Parser(PackedLexer.tokenize(source)).program()).totalSize();
+                long arena = GraphLayout.parseInstance(new Parser(PackedLexer.tokenize(source)).programArena()).totalSize();
+                System.out.printf("%10d %6d %10d %16d %16d %16d %7.1fx%n", statements, depth, source.length(),
+                        classic, packed, arena, (double) classic / arena);
+            }
+        }
+    }
+}
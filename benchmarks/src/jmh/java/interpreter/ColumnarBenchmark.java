@@ -0,0 +1,54 @@
+package interpreter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Measures one formula evaluated over many rows of input columns. The kernels are picked once per JVM, so the
+// Vector API and scalar loops run in separate forks
+@State(Scope.Benchmark)
+public class ColumnarBenchmark {
+    // Number of rows in each input column
+    @Param({"1000000"})
+    public int rows;
+
+    private static final String FORMULA =
+            "t = price * quantity; d = t * discount - 7; total = t - d + (price - 1) * (quantity + 2); net = -total * 3;";
+
+    private ColumnarEvaluator evaluator;
+    private Map<String, int[]> columns;
+
+    @Setup
+    public void setUp() {
+        evaluator = new ColumnarEvaluator(FORMULA, List.of("price", "quantity", "discount"));
+        Random random = new Random(3160);
+        columns = new HashMap<>();
+        for (String input : List.of("price", "quantity", "discount")) {
+            int[] column = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                column[i] = random.nextInt(1000);
+            }
+            columns.put(input, column);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    public Map<String, int[]> scalar() {
+        return evaluator.evaluate(columns);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public Map<String, int[]> vector() {
+        return evaluator.evaluate(columns);
+    }
+}
@@ -0,0 +1,53 @@
+package interpreter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+// Measures execution of a parsed and analyzed program by each engine, without printing
+public class InterpreterBenchmark extends ProgramBenchmark {
+    private AST tree;
+    private Bytecode bytecode;
+    private JitProgram jitProgram;
+    private NodeProgram nodeProgram;
+
+    @Setup
+    public void setUp() {
+        tree = parse(generateSource());
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.visit(tree);
+        bytecode = BytecodeCompiler.compile(tree);
+        jitProgram = JitCompiler.compile(tree, analyzer);
+        nodeProgram = new NodeProgram(tree, analyzer);
+    }
+
+    // Interpreter.execute runs the semantic analyzer again before walking the tree, as interpret() does
+    @Benchmark
+    public Interpreter treeWalker() {
+        Interpreter interpreter = new Interpreter(tree, new SemanticAnalyzer());
+        interpreter.execute();
+        return interpreter;
+    }
+
+    @Benchmark
+    public Bytecode compileBytecode() {
+        return BytecodeCompiler.compile(tree);
+    }
+
+    @Benchmark
+    public VirtualMachine virtualMachine() {
+        VirtualMachine vm = new VirtualMachine(bytecode);
+        vm.run();
+        return vm;
+    }
+
+    @Benchmark
+    public int[] jit() {
+        return jitProgram.run();
+    }
+
+    // Nodes specialize during the first warmup run, measured runs execute the fused tree
+    @Benchmark
+    public int[] nodeTree() {
+        return nodeProgram.run();
+    }
+}
@@ -0,0 +1,30 @@
+package interpreter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Measures Lexer.getNextToken and PackedLexer over a whole program
+public class LexerBenchmark extends ProgramBenchmark {
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = generateSource();
+    }
+
+    @Benchmark
+    public void lex(Blackhole blackhole) {
+        Lexer lexer = new Lexer(source);
+        Token token;
+        do {
+            token = lexer.getNextToken();
+            blackhole.consume(token);
+        } while (token.type != TokenType.EOF);
+    }
+
+    @Benchmark
+    public TokenStream packed() {
+        return PackedLexer.tokenize(source);
+    }
+}
@@ -0,0 +1,27 @@
+package interpreter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+// Measures Parser.program on tokens lexed in advance, as Token objects and as a packed stream
+public class ParserBenchmark extends ProgramBenchmark {
+    private Token[] tokens;
+    private TokenStream packedTokens;
+
+    @Setup
+    public void setUp() {
+        String source = generateSource();
+        tokens = ReplayLexer.tokenize(source);
+        packedTokens = PackedLexer.tokenize(source);
+    }
+
+    @Benchmark
+    public AST parse() {
+        return new Parser(new ReplayLexer(tokens)).program();
+    }
+
+    @Benchmark
+    public AST parsePacked() {
+        return new Parser(packedTokens).program();
+    }
+}
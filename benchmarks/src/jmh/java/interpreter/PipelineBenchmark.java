@@ -0,0 +1,54 @@
+package interpreter;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Measures the full pipeline the way Main runs it, from source text to printed variables
+public class PipelineBenchmark extends ProgramBenchmark {
+    // Same values as Main's --engine flag
+    @Param({"vm", "tree"})
+    public String engine;
+
+    // Same values as Main's --optimize flag
+    @Param({"basic", "dataflow"})
+    public String optimize;
+
+    private String source;
+    private PrintStream stdout;
+
+    // Output goes to a stream that discards it, formatting still runs
+    @Setup
+    public void setUp() {
+        source = generateSource();
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void run() {
+        AST tree = parse(source);
+        tree = new Optimizer().optimize(tree);
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.visit(tree);
+        if (optimize.equals("dataflow")) {
+            tree = new RedundancyEliminator().optimize(tree);
+            analyzer = new SemanticAnalyzer();
+            analyzer.visit(tree);
+        }
+        if (engine.equals("tree")) {
+            new Interpreter(tree, analyzer).interpret();
+        } else {
+            new VirtualMachine(BytecodeCompiler.compile(tree)).interpret();
+        }
+    }
+}
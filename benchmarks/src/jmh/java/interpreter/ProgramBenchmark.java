@@ -0,0 +1,31 @@
+package interpreter;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+// Shared size parameters of all benchmarks. Subclasses generate their input from these in their own @Setup
+@State(Scope.Benchmark)
+public abstract class ProgramBenchmark {
+    // Number of assignment statements
+    @Param({"1000", "100000"})
+    public int statements;
+
+    // Operator nesting of each right-hand side
+    @Param({"4", "32"})
+    public int depth;
+
+    // Number of distinct variable names
+    @Param({"16", "4096"})
+    public int variables;
+
+    // Generates program source for current parameters, always from the same seed
+    protected String generateSource() {
+        return new ProgramGenerator(3160).generate(statements, depth, variables);
+    }
+
+    // Lexes and parses program source
+    protected AST parse(String source) {
+        return new Parser(new Lexer(source)).program();
+    }
+}
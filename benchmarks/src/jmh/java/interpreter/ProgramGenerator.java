@@ -0,0 +1,69 @@
+package interpreter;
+
+import java.util.SplittableRandom;
+
+// Generates deterministic synthetic programs for benchmarks. Same seed and sizes always give the same text
+public class ProgramGenerator {
+    private final SplittableRandom random;
+
+    // Constructor takes in seed of the pseudo-random sequence
+    public ProgramGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    // Generates program of given number of assignments. Every expression nests up to depth operators and
+    // the program uses variables v0 .. v(variables - 1). Variables are only read after their first assignment
+    public String generate(int statements, int depth, int variables) {
+        StringBuilder out = new StringBuilder(statements * (depth * 8 + 8));
+        int defined = 0;  // Variables v0 .. v(defined - 1) have been assigned
+        for (int i = 0; i < statements; i++) {
+            int readable = defined;
+            int target;
+            if (defined < variables) {
+                target = defined++;
+            } else {
+                target = random.nextInt(variables);
+            }
+            out.append('v').append(target).append(" = ");
+            expression(out, depth, readable);
+            out.append("; ");
+        }
+        return out.toString();
+    }
+
+    // Appends expression nesting depth operators. One operand of each operator goes deeper, the other is a leaf,
+    // so program size grows linearly with depth
+    private void expression(StringBuilder out, int depth, int readable) {
+        if (depth == 0) {
+            leaf(out, readable);
+            return;
+        }
+        int choice = random.nextInt(10);
+        if (choice == 0) {
+            out.append('-');
+            expression(out, depth - 1, readable);
+        } else {
+            char op = choice < 4 ? '+' : choice < 7 ? '-' : '*';
+            out.append('(');
+            if (random.nextBoolean()) {
+                expression(out, depth - 1, readable);
+                out.append(' ').append(op).append(' ');
+                leaf(out, readable);
+            } else {
+                leaf(out, readable);
+                out.append(' ').append(op).append(' ');
+                expression(out, depth - 1, readable);
+            }
+            out.append(')');
+        }
+    }
+
+    // Appends variable that is already assigned or, if there is none, an integer literal
+    private void leaf(StringBuilder out, int readable) {
+        if (readable > 0 && random.nextBoolean()) {
+            out.append('v').append(random.nextInt(readable));
+        } else {
+            out.append(random.nextInt(100));
+        }
+    }
+}
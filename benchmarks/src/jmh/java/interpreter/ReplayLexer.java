@@ -0,0 +1,37 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lexer that replays tokens lexed in advance, so parser benchmarks don't measure lexing
+class ReplayLexer extends Lexer {
+    private final Token[] tokens;  // Tokens ending with EOF
+    private int pos = 0;  // Index of next token
+
+    public ReplayLexer(Token[] tokens) {
+        super(" ");
+        this.tokens = tokens;
+    }
+
+    // Lexes whole source up to and including EOF
+    public static Token[] tokenize(String source) {
+        Lexer lexer = new Lexer(source);
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = lexer.getNextToken();
+            tokens.add(token);
+        } while (token.type != TokenType.EOF);
+        return tokens.toArray(new Token[0]);
+    }
+
+    // Returns next recorded token, repeating EOF at the end
+    @Override
+    public Token getNextToken() {
+        Token token = tokens[pos];
+        if (token.type != TokenType.EOF) {
+            pos++;
+        }
+        return token;
+    }
+}
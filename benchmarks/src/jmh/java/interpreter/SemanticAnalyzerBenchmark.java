@@ -0,0 +1,21 @@
+package interpreter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+// Measures SemanticAnalyzer.visit on a parsed program
+public class SemanticAnalyzerBenchmark extends ProgramBenchmark {
+    private AST tree;
+
+    @Setup
+    public void setUp() {
+        tree = parse(generateSource());
+    }
+
+    @Benchmark
+    public SemanticAnalyzer analyze() {
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.visit(tree);
+        return analyzer;
+    }
+}
@@ -0,0 +1,107 @@
+package interpreter;
+
+import java.util.Arrays;
+
+// AstArena stores a whole program as parallel arrays instead of one object per node. Node i has kind kinds[i],
+// operator ops[i] (TokenType ordinal) and, depending on kind, children left[i]/right[i] and values[i] holding a
+// literal or a symbol id. Parser creates children before their parent, so every child index is below its parent's
+public class AstArena {
+    // Node kinds
+    public static final byte NUM = 0;  // values = literal
+    public static final byte VAR = 1;  // values = symbol id
+    public static final byte BINOP = 2;  // left, right = operands
+    public static final byte UNARYOP = 3;  // left = operand
+    public static final byte ASSIGN = 4;  // values = symbol id of target, left = expression
+
+    // Names of the symbol ids held by VAR and ASSIGN nodes
+    public final SymbolPool symbols;
+
+    public byte[] kinds;
+    public byte[] ops;
+    public int[] left;
+    public int[] right;
+    public int[] values;
+    public int size = 0;  // Number of nodes
+
+    // ASSIGN nodes of the top-level statements, in program order
+    public int[] statements = new int[16];
+    public int statementCount = 0;
+
+    // Constructor takes in pool used to turn identifier names into symbol ids
+    public AstArena(SymbolPool symbols) {
+        this.symbols = symbols;
+        this.kinds = new byte[64];
+        this.ops = new byte[64];
+        this.left = new int[64];
+        this.right = new int[64];
+        this.values = new int[64];
+    }
+
+    // Adds literal node
+    public int num(int value) {
+        return add(NUM, 0, -1, -1, value);
+    }
+
+    // Adds variable read node
+    public int var(int symbol) {
+        return add(VAR, 0, -1, -1, symbol);
+    }
+
+    // Adds binary operation node
+    public int binOp(TokenType op, int leftNode, int rightNode) {
+        return add(BINOP, op.ordinal(), leftNode, rightNode, 0);
+    }
+
+    // Adds unary operation node
+    public int unaryOp(TokenType op, int expr) {
+        return add(UNARYOP, op.ordinal(), expr, -1, 0);
+    }
+
+    // Adds assignment node
+    public int assign(int symbol, int expr) {
+        return add(ASSIGN, 0, expr, -1, symbol);
+    }
+
+    // Appends node to the top-level statement list
+    public void addStatement(int node) {
+        if (statementCount == statements.length) {
+            statements = Arrays.copyOf(statements, Math.max(16, statementCount * 2));
+        }
+        statements[statementCount++] = node;
+    }
+
+    // Shrinks arrays to their contents once the program is complete
+    public void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        ops = Arrays.copyOf(ops, size);
+        left = Arrays.copyOf(left, size);
+        right = Arrays.copyOf(right, size);
+        values = Arrays.copyOf(values, size);
+        statements = Arrays.copyOf(statements, statementCount);
+    }
+
+    // Returns bytes held by the arrays, capacity included. Symbol names are not counted
+    public long sizeInBytes() {
+        return kinds.length + ops.length + 4L * (left.length + right.length + values.length) + 4L * statements.length;
+    }
+
+    private int add(byte kind, int op, int leftNode, int rightNode, int value) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.nodeCreated();
+        }
+        if (size == kinds.length) {
+            int capacity = Math.max(64, size * 2);
+            kinds = Arrays.copyOf(kinds, capacity);
+            ops = Arrays.copyOf(ops, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[size] = kind;
+        ops[size] = (byte) op;
+        left[size] = leftNode;
+        right[size] = rightNode;
+        values[size] = value;
+        return size++;
+    }
+}
@@ -0,0 +1,369 @@
+package interpreter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// Outcome of one program of a batch, already formatted as one NDJSON line
+class BatchResult {
+    final String line;
+    final boolean ok;
+    final long nanos;  // Time from lexing to the last statement executed
+
+    BatchResult(String line, boolean ok, long nanos) {
+        this.line = line;
+        this.ok = ok;
+        this.nanos = nanos;
+    }
+}
+
+// Reads the fields of one NDJSON input line. A line is either a JSON string holding the program, or an object
+// with a "source" string, an optional "id" string or number and an optional "tenant" string, which only
+// TenantScheduler uses. Other fields must be strings, numbers, booleans or null and are ignored
+class BatchInputLine {
+    String id;
+    String tenant;
+    String source;
+
+    private final String line;
+    private int pos = 0;
+
+    BatchInputLine(String line) {
+        this.line = line;
+        skipSpaces();
+        if (peek() == '"') {
+            source = readString();
+        } else {
+            readObject();
+        }
+        skipSpaces();
+        if (pos != line.length() || source == null) {
+            throw new IllegalArgumentException("Error: Expected a JSON string or an object with a \"source\" string");
+        }
+    }
+
+    private void readObject() {
+        expect('{');
+        skipSpaces();
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipSpaces();
+            String key = readString();
+            skipSpaces();
+            expect(':');
+            skipSpaces();
+            String value = peek() == '"' ? readString() : readLiteral();
+            if (key.equals("source")) {
+                source = value;
+            } else if (key.equals("id")) {
+                id = value;
+            } else if (key.equals("tenant")) {
+                tenant = value;
+            }
+            skipSpaces();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect('}');
+                return;
+            }
+        }
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value.toString();
+            } else if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escape = next();
+            switch (escape) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > line.length()) {
+                        throw new IllegalArgumentException("Error: Invalid JSON escape");
+                    }
+                    value.append((char) Integer.parseInt(line.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default: value.append(escape);
+            }
+        }
+    }
+
+    // Reads number, true, false or null as its text
+    private String readLiteral() {
+        int start = pos;
+        while (pos < line.length() && ",} \t".indexOf(line.charAt(pos)) < 0) {
+            pos++;
+        }
+        if (start == pos) {
+            throw new IllegalArgumentException("Error: Unsupported JSON value at column " + (pos + 1));
+        }
+        return line.substring(start, pos);
+    }
+
+    private void skipSpaces() {
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        return pos < line.length() ? line.charAt(pos) : '\0';
+    }
+
+    private char next() {
+        if (pos >= line.length()) {
+            throw new IllegalArgumentException("Error: Unterminated JSON string");
+        }
+        return line.charAt(pos++);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw new IllegalArgumentException("Error: Expected '" + c + "' at column " + (pos + 1));
+        }
+        pos++;
+    }
+}
+
+// Runs many programs in one JVM, each through Lexer, Parser, SemanticAnalyzer and Interpreter on its own virtual
+// thread. At most concurrency programs run at once. Results are written as NDJSON in input order: a program that
+// finishes early waits in a bounded window until every program before it has been written
+public class BatchRunner {
+    private final int concurrency;
+    private final PrintStream out;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore running;  // Permits for programs running right now
+    private final ArrayDeque<Future<BatchResult>> pending = new ArrayDeque<>();  // Submitted, not yet written
+    private final int window;  // Most results held back waiting for an earlier one
+
+    // Latency of every program written so far, in nanoseconds
+    private long[] latencies = new long[1024];
+    private int count = 0;
+    private int failed = 0;
+    private long startNanos;
+    private long endNanos;
+
+    // Constructor takes in limit on programs running at once and stream results are written to
+    public BatchRunner(int concurrency, PrintStream out) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Error: Concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+        this.out = out;
+        this.running = new Semaphore(concurrency);
+        this.window = concurrency * 4;
+    }
+
+    // Runs every file as one program. Files are read by the virtual thread running them
+    public void runFiles(List<String> files) throws InterruptedException {
+        startNanos = System.nanoTime();
+        for (String file : files) {
+            submit(file, () -> new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+        }
+        finish();
+    }
+
+    // Runs every non-empty line of NDJSON input as one program. Lines without an "id" are named by line number
+    public void runNdjson(BufferedReader in) throws IOException, InterruptedException {
+        startNanos = System.nanoTime();
+        String text;
+        int lineNumber = 0;
+        while ((text = in.readLine()) != null) {
+            lineNumber++;
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            String number = Integer.toString(lineNumber);
+            BatchInputLine input;
+            try {
+                input = new BatchInputLine(text);
+            } catch (IllegalArgumentException e) {
+                // Reported in order like any other failed program
+                submit(number, () -> {
+                    throw e;
+                });
+                continue;
+            }
+            String source = input.source;
+            submit(input.id != null ? input.id : number, () -> source);
+        }
+        finish();
+    }
+
+    // Prints number of programs, throughput and latency percentiles
+    public void printSummary(PrintStream err) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        double seconds = (endNanos - startNanos) / 1e9;
+        err.println("Batch: " + count + " programs (" + failed + " failed) in " + String.format("%.3f", seconds)
+                + " s, " + String.format("%.0f", count / Math.max(seconds, 1e-9)) + " programs/s, concurrency "
+                + concurrency);
+        err.println("Latency: p50 " + micros(percentile(sorted, 50)) + " us, p90 " + micros(percentile(sorted, 90))
+                + " us, p99 " + micros(percentile(sorted, 99)) + " us, max "
+                + micros(count == 0 ? 0 : sorted[count - 1]) + " us");
+    }
+
+    // Returns number of programs written
+    public int getCount() {
+        return count;
+    }
+
+    // Returns number of programs that failed
+    public int getFailedCount() {
+        return failed;
+    }
+
+    // Waits for a permit, so reading input pauses while concurrency programs are running
+    private void submit(String id, Callable<String> source) throws InterruptedException {
+        running.acquire();
+        pending.add(executor.submit(() -> {
+            try {
+                return run(id, source);
+            } finally {
+                running.release();
+            }
+        }));
+        // Write finished results from the head, and block on the head when too many are held back
+        while (!pending.isEmpty() && (pending.peek().isDone() || pending.size() > window)) {
+            write(pending.poll());
+        }
+    }
+
+    private void finish() throws InterruptedException {
+        while (!pending.isEmpty()) {
+            write(pending.poll());
+        }
+        executor.shutdown();
+        endNanos = System.nanoTime();
+        out.flush();
+    }
+
+    private void write(Future<BatchResult> future) throws InterruptedException {
+        BatchResult result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            // run catches every error of a program itself, so this is a bug in the runner
+            throw new IllegalStateException(e.getCause());
+        }
+        out.println(result.line);
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = result.nanos;
+        if (!result.ok) {
+            failed++;
+        }
+    }
+
+    // Runs one program from source to variables. Every stage gets its own instance, nothing is shared between
+    // programs
+    private static BatchResult run(String id, Callable<String> sourceText) {
+        long start = System.nanoTime();
+        try {
+            String source = sourceText.call();
+            start = System.nanoTime();
+            AST tree = new Parser(new Lexer(source)).program();
+            SemanticAnalyzer analyzer = new SemanticAnalyzer();
+            Interpreter interpreter = new Interpreter(tree, analyzer);
+            interpreter.execute();
+            SymbolTable symbolTable = interpreter.getSymbolTable();
+            long nanos = System.nanoTime() - start;
+            return new BatchResult(resultLine(id, symbolTable), true, nanos);
+        } catch (IOException e) {
+            return failure(id, "Error: Cannot read " + e.getMessage(), start);
+        } catch (StackOverflowError e) {
+            return failure(id, "Error: Program is nested too deeply", start);
+        } catch (Exception e) {
+            return failure(id, e.getMessage() != null ? e.getMessage() : e.toString(), start);
+        }
+    }
+
+    private static BatchResult failure(String id, String message, long start) {
+        return new BatchResult(errorLine(id, message), false, System.nanoTime() - start);
+    }
+
+    // Formats variables of a program that ran as one NDJSON line, sorted by name like VariableWriter
+    static String resultLine(String id, SymbolTable symbolTable) {
+        String[] names = symbolTable.getAllVariableNames().toArray(new String[0]);
+        Arrays.sort(names);
+        StringBuilder line = new StringBuilder();
+        line.append("{\"id\":").append(quote(id)).append(",\"ok\":true,\"variables\":{");
+        boolean first = true;
+        for (String varName : names) {
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            line.append(quote(varName)).append(':').append(symbolTable.lookup(varName));
+        }
+        return line.append("}}").toString();
+    }
+
+    // Formats error of a program that failed as one NDJSON line
+    static String errorLine(String id, String message) {
+        return "{\"id\":" + quote(id) + ",\"ok\":false,\"error\":" + quote(message) + "}";
+    }
+
+    // Returns value at given percentile of sorted latencies, nearest rank
+    static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    static long micros(long nanos) {
+        return nanos / 1000;
+    }
+
+    // Writes text as a JSON string
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c == '\n') {
+                quoted.append("\\n");
+            } else if (c == '\r') {
+                quoted.append("\\r");
+            } else if (c == '\t') {
+                quoted.append("\\t");
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,199 @@
+package interpreter;
+
+import java.util.*;
+
+// Opcodes understood by the VirtualMachine. Each instruction is one int, operands follow inline
+final class Opcode {
+    // Pushes constant pool entry, operand: constant index
+    public static final int CONST = 0;
+    // Pushes value of variable, operand: frame slot
+    public static final int LOAD = 1;
+    // Pops value into variable, operand: frame slot
+    public static final int STORE = 2;
+    // Pops two values and pushes their sum
+    public static final int ADD = 3;
+    // Pops two values and pushes their difference
+    public static final int SUB = 4;
+    // Pops two values and pushes their product
+    public static final int MUL = 5;
+    // Negates value on top of stack
+    public static final int NEG = 6;
+    // Stops execution
+    public static final int HALT = 7;
+
+    private Opcode() {
+    }
+}
+
+// Compiled form of a program: flat instruction array plus constant pool and slot names
+final class Bytecode {
+    // Instructions and their inline operands
+    public final int[] code;
+    // Integer literals referenced by CONST
+    public final int[] constants;
+    // Variable name of each frame slot, in order of first assignment
+    public final String[] slotNames;
+    // Deepest operand stack the code needs
+    public final int maxStack;
+
+    public Bytecode(int[] code, int[] constants, String[] slotNames, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.slotNames = slotNames;
+        this.maxStack = maxStack;
+    }
+}
+
+// Compiles AST produced by Parser into Bytecode for the VirtualMachine
+public class BytecodeCompiler {
+    // Instruction buffer, grown as needed
+    private int[] code = new int[64];
+    private int codeLength = 0;
+
+    // Constant pool and index of each value in it, so equal literals share one entry
+    private final List<Integer> constants = new ArrayList<>();
+    private final Map<Integer, Integer> constantIndex = new HashMap<>();
+
+    // Frame slot of every assigned variable
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> slotNames = new ArrayList<>();
+
+    // Current and deepest operand stack depth
+    private int stackDepth = 0;
+    private int maxStack = 0;
+
+    // Compiles whole program and returns its bytecode
+    public static Bytecode compile(AST tree) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        compiler.visit(tree);
+        compiler.emit(Opcode.HALT);
+
+        int[] constantPool = new int[compiler.constants.size()];
+        for (int i = 0; i < constantPool.length; i++) {
+            constantPool[i] = compiler.constants.get(i);
+        }
+        return new Bytecode(Arrays.copyOf(compiler.code, compiler.codeLength), constantPool,
+                compiler.slotNames.toArray(new String[0]), compiler.maxStack);
+    }
+
+    // Dispatches node to appropriate method. Runs once per node at compile time, not per execution
+    private void visit(AST node) {
+        if (node instanceof BinOp) {
+            visitBinOp((BinOp) node);
+        } else if (node instanceof Num) {
+            visitNum((Num) node);
+        } else if (node instanceof UnaryOp) {
+            visitUnaryOp((UnaryOp) node);
+        } else if (node instanceof Compound) {
+            visitCompound((Compound) node);
+        } else if (node instanceof Assign) {
+            visitAssign((Assign) node);
+        } else if (node instanceof Var) {
+            visitVar((Var) node);
+        } else if (node instanceof NoOp) {
+            // NoOp nodes produce no code
+        } else {
+            throw new RuntimeException("Invalid node type");
+        }
+    }
+
+    // Emits both operands followed by the operator
+    private void visitBinOp(BinOp node) {
+        visit(node.left);
+        visit(node.right);
+        if (node.op.type == TokenType.PLUS) {
+            emit(Opcode.ADD);
+        } else if (node.op.type == TokenType.MINUS) {
+            emit(Opcode.SUB);
+        } else if (node.op.type == TokenType.MUL) {
+            emit(Opcode.MUL);
+        } else {
+            throw new RuntimeException("Invalid operator");
+        }
+        pop(1);
+    }
+
+    // Literal value goes into the constant pool
+    private void visitNum(Num node) {
+        int value = node.value;
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        emit(Opcode.CONST, index);
+        push();
+    }
+
+    // Unary plus produces no code, unary minus negates top of stack
+    private void visitUnaryOp(UnaryOp node) {
+        visit(node.expr);
+        if (node.op.type == TokenType.MINUS) {
+            emit(Opcode.NEG);
+        } else if (node.op.type != TokenType.PLUS) {
+            throw new RuntimeException("Invalid operator");
+        }
+    }
+
+    // Compiles all children in order
+    private void visitCompound(Compound node) {
+        for (AST child : node.children) {
+            visit(child);
+        }
+    }
+
+    // Right side is compiled before the target is defined, same order as Interpreter.visitAssign
+    private void visitAssign(Assign node) {
+        visit(node.right);
+        String varName = node.left.token.value;
+        Integer slot = slots.get(varName);
+        if (slot == null) {
+            slot = slotNames.size();
+            slots.put(varName, slot);
+            slotNames.add(varName);
+        }
+        emit(Opcode.STORE, slot);
+        pop(1);
+    }
+
+    // Programs are straight-line, so reading a variable that has no slot yet would fail at run time
+    private void visitVar(Var node) {
+        String varName = node.token.value;
+        Integer slot = slots.get(varName);
+        if (slot == null) {
+            throw new RuntimeException("Variable not found " + varName);
+        }
+        emit(Opcode.LOAD, slot);
+        push();
+    }
+
+    private void emit(int opcode) {
+        ensureCapacity(1);
+        code[codeLength++] = opcode;
+    }
+
+    private void emit(int opcode, int operand) {
+        ensureCapacity(2);
+        code[codeLength++] = opcode;
+        code[codeLength++] = operand;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (codeLength + extra > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, codeLength + extra));
+        }
+    }
+
+    // Tracks stack depth so the VM can size its operand stack once
+    private void push() {
+        stackDepth++;
+        if (stackDepth > maxStack) {
+            maxStack = stackDepth;
+        }
+    }
+
+    private void pop(int count) {
+        stackDepth -= count;
+    }
+}
@@ -0,0 +1,188 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Outcome of checking one file: every error found in it, in source order
+class FileCheck {
+    final Path file;
+    int statements = 0;  // Statements parsed without error
+    final List<SourceException> errors = new ArrayList<>();
+    String readError;  // Set when file couldn't be read, nothing else is checked then
+
+    FileCheck(Path file) {
+        this.file = file;
+    }
+
+    // Lexes, parses and analyzes file. Parser recovers at ';', and a statement failing analysis still defines
+    // its target, so a variable isn't reported again at every later read. Expressions are parsed iteratively,
+    // so nesting of any depth parses, and a statement too deep to analyze is reported like any other error
+    void check() {
+        String text;
+        try {
+            text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            readError = "Cannot read " + file;
+            return;
+        }
+        Lexer lexer = new Lexer(text);
+        Parser parser = null;
+        while (parser == null) {
+            try {
+                parser = new Parser(lexer);
+            } catch (LexerException e) {
+                // First token was invalid. Lexer has skipped past it, so the next attempt reads on from there
+                errors.add(e);
+            }
+        }
+        parser.setIterative(true);
+        List<ParsedStatement> parsed = parser.programWithRecovery(errors);
+        statements = parsed.size();
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        for (ParsedStatement statement : parsed) {
+            try {
+                analyzer.visit(statement.node);
+            } catch (SemanticAnalyzerException e) {
+                errors.add(new SemanticAnalyzerException(e.detail, statement.line, statement.column));
+                analyzer.defineInput(((Assign) statement.node).left.value);
+            } catch (StackOverflowError e) {
+                errors.add(new SemanticAnalyzerException("Error: Statement is nested too deeply", statement.line,
+                        statement.column));
+                analyzer.defineInput(((Assign) statement.node).left.value);
+            }
+        }
+        errors.sort(Comparator.comparingInt((SourceException e) -> e.line).thenComparingInt(e -> e.column));
+    }
+
+}
+
+// Checks files of a range by splitting it until each task holds one file
+class CheckTask extends RecursiveAction {
+    private final FileCheck[] checks;
+    private final int start;
+    private final int end;
+
+    CheckTask(FileCheck[] checks, int start, int end) {
+        this.checks = checks;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start == 1) {
+            checks[start].check();
+            return;
+        }
+        int middle = (start + end) >>> 1;
+        invokeAll(new CheckTask(checks, start, middle), new CheckTask(checks, middle, end));
+    }
+}
+
+// Checks many files at once without running them. Files are lexed, parsed and analyzed in parallel on a
+// ForkJoinPool, each one to the end whatever errors it holds, and all errors are written as one JSON report
+public class CheckRunner {
+    private final ForkJoinPool pool;  // Pool files are checked on
+    private FileCheck[] checks = new FileCheck[0];
+
+    // Constructor checks on the common pool
+    public CheckRunner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    // Constructor takes in pool to check on
+    public CheckRunner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Checks given files. A directory stands for every regular file below it, in name order
+    public void check(List<String> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String path : paths) {
+            Path file = Paths.get(path);
+            if (Files.isDirectory(file)) {
+                try (Stream<Path> walk = Files.walk(file)) {
+                    files.addAll(walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                }
+            } else {
+                files.add(file);
+            }
+        }
+        checks = new FileCheck[files.size()];
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = new FileCheck(files.get(i));
+        }
+        if (checks.length > 0) {
+            pool.invoke(new CheckTask(checks, 0, checks.length));
+        }
+    }
+
+    // Returns number of errors found in all files
+    public int getErrorCount() {
+        int count = 0;
+        for (FileCheck check : checks) {
+            count += check.errors.size() + (check.readError != null ? 1 : 0);
+        }
+        return count;
+    }
+
+    // Writes report: totals, then one object per file in the order given, holding its errors. Lexer and
+    // Parser errors point at the offending token, semantic errors at the start of their statement
+    public void printReport(PrintStream out) {
+        int failed = 0;
+        for (FileCheck check : checks) {
+            if (!check.errors.isEmpty() || check.readError != null) {
+                failed++;
+            }
+        }
+        StringBuilder report = new StringBuilder();
+        report.append("{\"files\":").append(checks.length).append(",\"failed\":").append(failed)
+                .append(",\"errors\":").append(getErrorCount()).append(",\"results\":[");
+        for (int i = 0; i < checks.length; i++) {
+            FileCheck check = checks[i];
+            report.append(i == 0 ? "\n" : ",\n");
+            report.append("{\"file\":").append(BatchRunner.quote(check.file.toString()))
+                    .append(",\"statements\":").append(check.statements).append(",\"errors\":[");
+            if (check.readError != null) {
+                appendError(report, "io", 0, 0, check.readError);
+            }
+            for (int j = 0; j < check.errors.size(); j++) {
+                SourceException error = check.errors.get(j);
+                if (j > 0 || check.readError != null) {
+                    report.append(',');
+                }
+                appendError(report, phase(error), error.line, error.column, ErrorHandler.reason(error.detail));
+            }
+            report.append("]}");
+        }
+        report.append("\n]}");
+        out.println(report);
+        out.flush();
+    }
+
+    private static void appendError(StringBuilder report, String phase, int line, int column, String message) {
+        report.append("{\"phase\":\"").append(phase).append("\",\"line\":").append(line)
+                .append(",\"column\":").append(column).append(",\"message\":").append(BatchRunner.quote(message))
+                .append('}');
+    }
+
+    private static String phase(SourceException error) {
+        if (error instanceof LexerException) {
+            return "lexer";
+        } else if (error instanceof ParserException) {
+            return "parser";
+        }
+        return "semantic";
+    }
+}
@@ -0,0 +1,227 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Lexes and parses the chunks of a range by splitting it until each task holds one chunk
+class ChunkTask extends RecursiveAction {
+    private final ChunkedParser parser;
+    private final int start;
+    private final int end;
+
+    ChunkTask(ChunkedParser parser, int start, int end) {
+        this.parser = parser;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start == 1) {
+            parser.parseChunk(start);
+            return;
+        }
+        int middle = (start + end) >>> 1;
+        invokeAll(new ChunkTask(parser, start, middle), new ChunkTask(parser, middle, end));
+    }
+}
+
+// Front end for huge program files. No token spans a ';' and no statement nests across one, so the file is
+// cut right after ';' bytes into chunks that are memory-mapped, lexed and parsed independently on a
+// ForkJoinPool. Statements of all chunks are joined in file order into one Compound, the same program the
+// sequential Parser builds up to empty statements, which run as no-ops. ';' is ASCII, so a cut never falls
+// inside a UTF-8 sequence
+public class ChunkedParser {
+    // Files below this size are parsed as one chunk
+    static final long MIN_CHUNK_SIZE = 1L << 20;
+    // Largest chunk, keeps its text well below String and mapping limits
+    static final long MAX_CHUNK_SIZE = 64L << 20;
+    // Bytes read at a time while looking for a ';' to cut at
+    private static final int SCAN_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final long[] bounds;  // Chunk i covers bytes [bounds[i], bounds[i + 1])
+    private final List<List<AST>> statements;  // Top-level statements of each chunk
+    private final SourceException[] errors;  // Error of each chunk, kept so the first one in file order wins
+    // Any other exception of each chunk, rethrown as it is, since the pool would rethrow a copy without message
+    private final RuntimeException[] failures;
+    // Line breaks in each chunk, and characters after its last one, or in all of it when it has none
+    private final int[] lineBreaks;
+    private final int[] tailColumns;
+
+    private ChunkedParser(FileChannel channel, long[] bounds) {
+        this.channel = channel;
+        this.bounds = bounds;
+        this.statements = new ArrayList<>(Collections.nCopies(bounds.length - 1, null));
+        this.errors = new SourceException[bounds.length - 1];
+        this.failures = new RuntimeException[bounds.length - 1];
+        this.lineBreaks = new int[bounds.length - 1];
+        this.tailColumns = new int[bounds.length - 1];
+    }
+
+    // Parses whole file on the common pool
+    public static AST parse(Path file) throws IOException {
+        return parse(file, ForkJoinPool.commonPool());
+    }
+
+    // Parses whole file on given pool. Throws the error of the first chunk, in file order, that has one.
+    // Positions of errors and statements are moved from their chunk to the file
+    public static AST parse(Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long target = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (4L * pool.getParallelism())));
+            ChunkedParser parser = new ChunkedParser(channel, split(channel, size, target));
+            pool.invoke(new ChunkTask(parser, 0, parser.statements.size()));
+
+            // Line of the file each chunk starts on, and characters before it on that line
+            int total = 0;
+            int lines = 0;
+            int columns = 0;
+            for (int i = 0; i < parser.statements.size(); i++) {
+                if (parser.errors[i] != null) {
+                    throw relocate(parser.errors[i], lines, columns);
+                }
+                if (parser.failures[i] instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) parser.failures[i]).getCause();
+                } else if (parser.failures[i] != null) {
+                    throw parser.failures[i];
+                }
+                if (lines > 0 || columns > 0) {
+                    relocate(parser.statements.get(i), lines, columns);
+                }
+                total += parser.statements.get(i).size();
+                lines += parser.lineBreaks[i];
+                columns = parser.lineBreaks[i] > 0 ? parser.tailColumns[i] : columns + parser.tailColumns[i];
+            }
+            Compound program = new Compound();
+            program.children = new ArrayList<>(total);
+            for (List<AST> chunk : parser.statements) {
+                program.children.addAll(chunk);
+            }
+            return program;
+        }
+    }
+
+    // Returns chunk bounds. Each chunk but the last ends right after the first ';' at or past target bytes
+    private static long[] split(FileChannel channel, long size, long target) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long start = 0;
+        ByteBuffer window = ByteBuffer.allocate(SCAN_SIZE);
+        while (size - start > target) {
+            long cut = findSemicolon(channel, start + target, size, window);
+            if (cut < 0) {
+                break;
+            }
+            bounds.add(cut + 1);
+            start = cut + 1;
+        }
+        if (start < size || bounds.size() == 1) {
+            bounds.add(size);
+        }
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Returns offset of first ';' in [from, size), or -1 when there is none
+    private static long findSemicolon(FileChannel channel, long from, long size, ByteBuffer window)
+            throws IOException {
+        long position = from;
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == ';') {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return -1;
+    }
+
+    // Maps, decodes, lexes and parses chunk i. Whatever goes wrong is kept for parse to report, so one chunk
+    // never fails the pool
+    void parseChunk(int i) {
+        try {
+            parseChunkText(i);
+        } catch (LexerException | ParserException e) {
+            errors[i] = e;
+        } catch (RuntimeException e) {
+            failures[i] = e;
+        } catch (StackOverflowError e) {
+            errors[i] = new ParserException("Error: Program is nested too deeply in chunk at byte " + bounds[i]);
+        }
+    }
+
+    private void parseChunkText(int i) {
+        long start = bounds[i];
+        long length = bounds[i + 1] - start;
+        if (length > Integer.MAX_VALUE) {
+            errors[i] = new ParserException("Error: Statement too long for chunked parsing at byte " + start);
+            return;
+        }
+        String text;
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            text = StandardCharsets.UTF_8.decode(buffer).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int j = 0; j < text.length(); j++) {
+            if (text.charAt(j) == '\n') {
+                lineBreaks[i]++;
+                tailColumns[i] = 0;
+            } else {
+                tailColumns[i]++;
+            }
+        }
+        if (text.isEmpty()) {
+            statements.set(i, new ArrayList<>());
+            return;
+        }
+        statements.set(i, ((Compound) new Parser(PackedLexer.tokenize(text)).program()).children);
+    }
+
+    // Moves position of error in a chunk starting after given lines and columns to its position in the file
+    private static SourceException relocate(SourceException e, int lines, int columns) {
+        if (e.line == 0) {
+            return e;
+        }
+        int column = e.line == 1 ? e.column + columns : e.column;
+        if (e instanceof LexerException) {
+            return new LexerException(e.detail, e.line + lines, column);
+        }
+        return new ParserException(e.detail, e.line + lines, column);
+    }
+
+    // Moves positions of statements the same way
+    private static void relocate(List<AST> statements, int lines, int columns) {
+        for (AST statement : statements) {
+            if (statement instanceof Assign) {
+                Assign assign = (Assign) statement;
+                if (assign.line == 1) {
+                    assign.column += columns;
+                }
+                assign.line += lines;
+            }
+        }
+    }
+}
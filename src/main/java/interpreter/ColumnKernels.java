@@ -0,0 +1,83 @@
+package interpreter;
+
+// Element-wise operations on the first n elements of int columns. Arithmetic wraps exactly like int arithmetic
+// in Interpreter. Output may be one of the inputs, every element is read before it is written
+interface ColumnKernels {
+    void add(int[] a, int[] b, int[] out, int n);
+
+    void addScalar(int[] a, int scalar, int[] out, int n);
+
+    void sub(int[] a, int[] b, int[] out, int n);
+
+    // out = a - scalar
+    void subScalar(int[] a, int scalar, int[] out, int n);
+
+    // out = scalar - a
+    void scalarSub(int scalar, int[] a, int[] out, int n);
+
+    void mul(int[] a, int[] b, int[] out, int n);
+
+    void mulScalar(int[] a, int scalar, int[] out, int n);
+
+    void neg(int[] a, int[] out, int n);
+}
+
+// Plain loops, used when jdk.incubator.vector isn't in the module graph. HotSpot's superword pass often
+// vectorizes these itself
+class ScalarKernels implements ColumnKernels {
+    @Override
+    public void add(int[] a, int[] b, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void addScalar(int[] a, int scalar, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] + scalar;
+        }
+    }
+
+    @Override
+    public void sub(int[] a, int[] b, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    public void subScalar(int[] a, int scalar, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] - scalar;
+        }
+    }
+
+    @Override
+    public void scalarSub(int scalar, int[] a, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = scalar - a[i];
+        }
+    }
+
+    @Override
+    public void mul(int[] a, int[] b, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+
+    @Override
+    public void mulScalar(int[] a, int scalar, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = a[i] * scalar;
+        }
+    }
+
+    @Override
+    public void neg(int[] a, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = -a[i];
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Operand of a column instruction: a register holding a column, or a value that is the same in every row
+class ColumnOperand {
+    final boolean scalar;
+    final int value;  // Register when scalar is false
+
+    ColumnOperand(boolean scalar, int value) {
+        this.scalar = scalar;
+        this.value = value;
+    }
+}
+
+// Evaluates one program over many rows at once. Some variables are marked as inputs and bound to int[] columns,
+// and the program is compiled once into instructions over whole columns. Rows are processed in chunks small
+// enough to stay in cache: every instruction runs over the whole chunk before the next one starts, so the tree
+// is walked once per compile instead of once per row. Column arithmetic runs on the jdk.incubator.vector API
+// when that module is present (java --add-modules jdk.incubator.vector) and on plain loops otherwise
+public class ColumnarEvaluator {
+    // Rows per chunk. Each register holds one chunk, 4 KB at this size
+    static final int CHUNK_SIZE = 1024;
+
+    // Instructions are five ints: opcode, destination register, operand a, operand b, scalar
+    private static final int ADD = 0;
+    private static final int ADD_SCALAR = 1;
+    private static final int SUB = 2;
+    private static final int SUB_SCALAR = 3;
+    private static final int SCALAR_SUB = 4;
+    private static final int MUL = 5;
+    private static final int MUL_SCALAR = 6;
+    private static final int NEG = 7;
+    private static final int COPY = 8;
+    private static final int FILL = 9;
+
+    private static final ColumnKernels KERNELS = loadKernels();
+
+    private final String[] inputs;  // Input variable names, their slots are 0 .. inputs.length - 1
+    private final int[] outputSlots;  // Slots of assigned variables, in slot order
+    private final String[] outputNames;
+    private final int slotCount;
+    private final int registerCount;  // Slots followed by temporaries
+    private final int[] plan;  // Instructions
+    private int[] planBuffer = new int[64];  // Instructions while compiling
+    private int planLength = 0;
+    private int maxTemps = 0;
+
+    // Compiles program, treating given variables as inputs. Throws the usual front-end exceptions for invalid
+    // programs, e.g. when a variable that isn't an input is read before it is assigned
+    public ColumnarEvaluator(String source, List<String> inputs) {
+        this.inputs = inputs.toArray(new String[0]);
+        AST tree = new Optimizer().optimize(new Parser(new Lexer(source)).program());
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        for (String input : inputs) {
+            analyzer.defineInput(input);
+        }
+        analyzer.visit(tree);
+        slotCount = analyzer.getSlotCount();
+
+        List<Assign> statements = new ArrayList<>();
+        collectStatements(tree, statements);
+        boolean[] assigned = new boolean[slotCount];
+        for (Assign statement : statements) {
+            compileAssign(statement);
+            assigned[statement.left.slot] = true;
+        }
+        plan = Arrays.copyOf(planBuffer, planLength);
+        planBuffer = null;
+        registerCount = slotCount + maxTemps;
+
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (assigned[slot]) {
+                slots.add(slot);
+            }
+        }
+        outputSlots = new int[slots.size()];
+        outputNames = new String[slots.size()];
+        for (int i = 0; i < outputSlots.length; i++) {
+            outputSlots[i] = slots.get(i);
+            outputNames[i] = analyzer.getSlotName(outputSlots[i]);
+        }
+    }
+
+    // Evaluates the program for every row. Every input must be bound to a column, all of the same length.
+    // Returns one new column per assigned variable, in order of first assignment. Input arrays aren't changed,
+    // and each call works in its own registers, so one evaluator may be used from many threads at once
+    public Map<String, int[]> evaluate(Map<String, int[]> columns) {
+        int rows = -1;
+        int[][] inputColumns = new int[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            inputColumns[i] = columns.get(inputs[i]);
+            if (inputColumns[i] == null) {
+                throw new IllegalArgumentException("Error: No column for input " + inputs[i]);
+            }
+            if (rows >= 0 && inputColumns[i].length != rows) {
+                throw new IllegalArgumentException("Error: Input columns differ in length");
+            }
+            rows = inputColumns[i].length;
+        }
+        rows = Math.max(rows, inputs.length == 0 ? 1 : 0);
+
+        int[][] outputs = new int[outputSlots.length][rows];
+        int[][] registers = new int[registerCount][CHUNK_SIZE];
+        for (int start = 0; start < rows; start += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, rows - start);
+            for (int i = 0; i < inputColumns.length; i++) {
+                System.arraycopy(inputColumns[i], start, registers[i], 0, n);
+            }
+            run(registers, n);
+            for (int i = 0; i < outputSlots.length; i++) {
+                System.arraycopy(registers[outputSlots[i]], 0, outputs[i], start, n);
+            }
+        }
+
+        Map<String, int[]> result = new LinkedHashMap<>();
+        for (int i = 0; i < outputSlots.length; i++) {
+            result.put(outputNames[i], outputs[i]);
+        }
+        return result;
+    }
+
+    // Returns whether column arithmetic runs on the Vector API
+    public static boolean isVectorized() {
+        return !(KERNELS instanceof ScalarKernels);
+    }
+
+    // Runs every instruction over the first n rows of the registers
+    private void run(int[][] registers, int n) {
+        ColumnKernels kernels = KERNELS;
+        for (int pc = 0; pc < plan.length; pc += 5) {
+            int[] out = registers[plan[pc + 1]];
+            int[] a = registers[plan[pc + 2]];
+            int scalar = plan[pc + 4];
+            switch (plan[pc]) {
+                case ADD:
+                    kernels.add(a, registers[plan[pc + 3]], out, n);
+                    break;
+                case ADD_SCALAR:
+                    kernels.addScalar(a, scalar, out, n);
+                    break;
+                case SUB:
+                    kernels.sub(a, registers[plan[pc + 3]], out, n);
+                    break;
+                case SUB_SCALAR:
+                    kernels.subScalar(a, scalar, out, n);
+                    break;
+                case SCALAR_SUB:
+                    kernels.scalarSub(scalar, a, out, n);
+                    break;
+                case MUL:
+                    kernels.mul(a, registers[plan[pc + 3]], out, n);
+                    break;
+                case MUL_SCALAR:
+                    kernels.mulScalar(a, scalar, out, n);
+                    break;
+                case NEG:
+                    kernels.neg(a, out, n);
+                    break;
+                case COPY:
+                    System.arraycopy(a, 0, out, 0, n);
+                    break;
+                case FILL:
+                    Arrays.fill(out, 0, n, scalar);
+                    break;
+                default:
+                    throw new RuntimeException("Invalid instruction " + plan[pc]);
+            }
+        }
+    }
+
+    // Compiles assignment so its expression's last instruction writes straight into the target's register
+    private void compileAssign(Assign node) {
+        int target = node.left.slot;
+        ColumnOperand value = compileExpr(node.right, target, 0);
+        if (value.scalar) {
+            emit(FILL, target, 0, 0, value.value);
+        } else if (value.value != target) {
+            emit(COPY, target, value.value, 0, 0);
+        }
+    }
+
+    // Compiles expression whose result, if it needs computing, goes to register dst. Children only write to dst
+    // when it is a temporary, and otherwise to temporaries at depth and deeper, so they never overwrite a
+    // register the parent still reads. Operations on two scalars are folded here
+    private ColumnOperand compileExpr(AST node, int dst, int depth) {
+        if (node instanceof Num) {
+            return new ColumnOperand(true, ((Num) node).value);
+        } else if (node instanceof Var) {
+            return new ColumnOperand(false, ((Var) node).slot);
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            ColumnOperand operand = compileExpr(unaryOp.expr, dst, depth);
+            if (unaryOp.op.type == TokenType.PLUS) {
+                return operand;
+            } else if (operand.scalar) {
+                return new ColumnOperand(true, -operand.value);
+            }
+            emit(NEG, dst, operand.value, 0, 0);
+            return new ColumnOperand(false, dst);
+        } else if (!(node instanceof BinOp)) {
+            throw new RuntimeException("Invalid node type");
+        }
+
+        BinOp binOp = (BinOp) node;
+        ColumnOperand left;
+        if (dst >= slotCount) {
+            // Left operand may build its result in the temporary this node writes, so chains like
+            // a + b + c + d need no more temporaries than a + b
+            left = compileExpr(binOp.left, dst, depth);
+        } else {
+            // dst is a variable the right operand may still read
+            left = compileExpr(binOp.left, temp(depth), depth + 1);
+            depth++;
+        }
+        ColumnOperand right = compileExpr(binOp.right, temp(depth), depth + 1);
+        TokenType op = binOp.op.type;
+        if (left.scalar && right.scalar) {
+            if (op == TokenType.PLUS) {
+                return new ColumnOperand(true, left.value + right.value);
+            } else if (op == TokenType.MINUS) {
+                return new ColumnOperand(true, left.value - right.value);
+            }
+            return new ColumnOperand(true, left.value * right.value);
+        }
+        if (op == TokenType.PLUS) {
+            if (left.scalar || right.scalar) {
+                ColumnOperand column = left.scalar ? right : left;
+                emit(ADD_SCALAR, dst, column.value, 0, left.scalar ? left.value : right.value);
+            } else {
+                emit(ADD, dst, left.value, right.value, 0);
+            }
+        } else if (op == TokenType.MINUS) {
+            if (left.scalar) {
+                emit(SCALAR_SUB, dst, right.value, 0, left.value);
+            } else if (right.scalar) {
+                emit(SUB_SCALAR, dst, left.value, 0, right.value);
+            } else {
+                emit(SUB, dst, left.value, right.value, 0);
+            }
+        } else if (op == TokenType.MUL) {
+            if (left.scalar || right.scalar) {
+                ColumnOperand column = left.scalar ? right : left;
+                emit(MUL_SCALAR, dst, column.value, 0, left.scalar ? left.value : right.value);
+            } else {
+                emit(MUL, dst, left.value, right.value, 0);
+            }
+        } else {
+            throw new RuntimeException("Invalid operator");
+        }
+        return new ColumnOperand(false, dst);
+    }
+
+    // Returns register of temporary at given depth
+    private int temp(int depth) {
+        maxTemps = Math.max(maxTemps, depth + 1);
+        return slotCount + depth;
+    }
+
+    private void emit(int opcode, int dst, int a, int b, int scalar) {
+        if (planLength + 5 > planBuffer.length) {
+            planBuffer = Arrays.copyOf(planBuffer, planBuffer.length * 2);
+        }
+        planBuffer[planLength++] = opcode;
+        planBuffer[planLength++] = dst;
+        planBuffer[planLength++] = a;
+        planBuffer[planLength++] = b;
+        planBuffer[planLength++] = scalar;
+    }
+
+    // Flattens compound nodes into their assignments, in program order
+    private static void collectStatements(AST node, List<Assign> statements) {
+        if (node instanceof Compound) {
+            for (AST child : ((Compound) node).children) {
+                collectStatements(child, statements);
+            }
+        } else if (node instanceof Assign) {
+            statements.add((Assign) node);
+        }
+    }
+
+    // Uses the Vector API only if its module was resolved at startup, otherwise VectorKernels can't even load
+    private static ColumnKernels loadKernels() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (ColumnKernels) Class.forName("interpreter.VectorKernels").getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall through to scalar loops
+            }
+        }
+        return new ScalarKernels();
+    }
+}
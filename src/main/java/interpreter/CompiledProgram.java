@@ -0,0 +1,67 @@
+package interpreter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Program lexed, parsed, optimized, checked and compiled to bytecode once, then run any number of times.
+// Nothing in it changes after compile returns and every run gets its own VirtualMachine with a fresh frame,
+// so one instance can be executed from many threads at once
+public final class CompiledProgram {
+    private final Bytecode bytecode;  // Never handed out, so its arrays are never written after compiling
+    private final List<String> names;  // Variable name of each slot
+    private final Map<String, Integer> slots;  // Slot of each variable name
+
+    // Wraps bytecode that was already checked, e.g. read back by ProgramCache. It must not be changed afterwards
+    CompiledProgram(Bytecode bytecode) {
+        this.bytecode = bytecode;
+        this.names = ProgramResult.names(bytecode.slotNames);
+        Map<String, Integer> slots = new HashMap<>();
+        for (int slot = 0; slot < bytecode.slotNames.length; slot++) {
+            slots.put(bytecode.slotNames[slot], slot);
+        }
+        this.slots = Collections.unmodifiableMap(slots);
+    }
+
+    // Runs every stage up to bytecode on source. Invalid programs throw a positioned LexerException for an
+    // invalid character or a literal out of range, ParserException for a syntax error, or
+    // SemanticAnalyzerException for a variable read before it is assigned
+    public static CompiledProgram compile(String source) {
+        AST tree = new Parser(new Lexer(source)).program();
+        tree = new Optimizer().optimize(tree);
+        new SemanticAnalyzer().visit(tree);
+        // The AST is dropped here, only the bytecode stays alive
+        return new CompiledProgram(BytecodeCompiler.compile(tree));
+    }
+
+    // Runs the program and returns its variables in a frame owned by the result
+    public ProgramResult execute() {
+        return new ProgramResult(names, slots, run());
+    }
+
+    // Runs the program and hands every variable to sink, in slot order, without keeping a result
+    public void execute(VariableSink sink) {
+        int[] frame = run();
+        for (int slot = 0; slot < frame.length; slot++) {
+            sink.accept(names.get(slot), frame[slot]);
+        }
+    }
+
+    // Returns names of all variables, in order of first assignment
+    public List<String> getVariableNames() {
+        return names;
+    }
+
+    // Returns bytecode for serializing. Callers must not change it
+    Bytecode getBytecode() {
+        return bytecode;
+    }
+
+    private int[] run() {
+        VirtualMachine vm = new VirtualMachine(bytecode);
+        vm.run();
+        // The machine isn't reachable from anywhere else, so its frame becomes the result
+        return vm.getFrame();
+    }
+}
@@ -0,0 +1,91 @@
+package interpreter;
+
+// ErrorHandler collects and reports errors. It holds no state, so any number of threads may use it at once
+public class ErrorHandler {
+    private ErrorHandler() {
+    }
+
+    // Appends source position to message, when it is known
+    public static String format(String message, int line, int column) {
+        return line > 0 ? message + " at line " + line + ", column " + column : message;
+    }
+
+    // Returns 1-based line of character at offset of source
+    public static int lineOf(CharSequence source, int offset) {
+        int line = 1;
+        for (int i = 0; i < offset && i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    // Returns 1-based column of character at offset of source
+    public static int columnOf(CharSequence source, int offset) {
+        int start = Math.min(offset, source.length());
+        while (start > 0 && source.charAt(start - 1) != '\n') {
+            start--;
+        }
+        return offset - start + 1;
+    }
+
+    // Returns message without the "Error: " prefix every front end message starts with
+    public static String reason(String message) {
+        return message.startsWith("Error: ") ? message.substring("Error: ".length()) : message;
+    }
+}
+
+// Error found in program text, with the 1-based line and column it was found at, or 0 when unknown
+class SourceException extends RuntimeException {
+    public final String detail;  // Message without position
+    public final int line;
+    public final int column;
+
+    public SourceException(String message, int line, int column) {
+        super(ErrorHandler.format(message, line, column));
+        this.detail = message;
+        this.line = line;
+        this.column = column;
+    }
+}
+
+// Thrown when Lexer meets a character that starts no token
+class LexerException extends SourceException {
+    public LexerException(String message) {
+        this(message, 0, 0);
+    }
+
+    public LexerException(String message, int line, int column) {
+        super(message, line, column);
+    }
+}
+
+// Thrown when Parser meets a token the grammar doesn't allow
+class ParserException extends SourceException {
+    public ParserException(String message) {
+        this(message, 0, 0);
+    }
+
+    public ParserException(String message, int line, int column) {
+        super(message, line, column);
+    }
+}
+
+// Thrown when SemanticAnalyzer finds a variable read before it is assigned
+class SemanticAnalyzerException extends SourceException {
+    public SemanticAnalyzerException(String message) {
+        this(message, 0, 0);
+    }
+
+    public SemanticAnalyzerException(String message, int line, int column) {
+        super(message, line, column);
+    }
+}
+
+// Thrown when Interpreter can't evaluate a node
+class InterpreterException extends RuntimeException {
+    public InterpreterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,192 @@
+package interpreter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event covering one phase of a run. JFR records its start time and duration
+@Name("interpreter.Phase")
+@Label("Interpreter Phase")
+@Category("Interpreter")
+@Description("One phase of a run, e.g. parse, analyze or execute")
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
+
+// JFR event holding the counters of a whole run, committed once by Instrumentation.summary
+@Name("interpreter.Counters")
+@Label("Interpreter Counters")
+@Category("Interpreter")
+class CountersEvent extends Event {
+    @Label("Tokens Lexed")
+    long tokens;
+
+    @Label("Lexing Time (ns)")
+    long lexNanos;
+
+    @Label("AST Nodes Created")
+    long nodesCreated;
+
+    @Label("Nodes Visited by SemanticAnalyzer")
+    long analyzerVisits;
+
+    @Label("Nodes Visited by Interpreter")
+    long interpreterVisits;
+
+    @Label("Symbol Lookups")
+    long symbolLookups;
+}
+
+// Start of a phase, handed back to Instrumentation.end
+class PhaseTimer {
+    final String phase;
+    final long startNanos;
+    final long startAllocated;
+    final PhaseEvent event;
+
+    PhaseTimer(String phase, long startNanos, long startAllocated, PhaseEvent event) {
+        this.phase = phase;
+        this.startNanos = startNanos;
+        this.startAllocated = startAllocated;
+        this.event = event;
+    }
+}
+
+// Per-phase wall time and allocation plus counters of tokens lexed, AST nodes created and visited and symbol
+// lookups. Turned on by -Dinterpreter.instrument=true, which Main sets for --instrument before anything is lexed.
+// ENABLED is a static final constant, so when it is off the JIT removes every counter update from the hot paths.
+// Phases are still reported as JFR events, which cost one check when no recording is running
+public final class Instrumentation {
+    public static final boolean ENABLED = Boolean.getBoolean("interpreter.instrument");
+
+    private static final LongAdder tokens = new LongAdder();
+    private static final LongAdder lexNanos = new LongAdder();
+    private static final LongAdder nodesCreated = new LongAdder();
+    private static final LongAdder analyzerVisits = new LongAdder();
+    private static final LongAdder interpreterVisits = new LongAdder();
+    private static final LongAdder symbolLookups = new LongAdder();
+
+    // Wall time and allocated bytes of every phase ended so far, in order of first use
+    private static final Map<String, long[]> phases = new LinkedHashMap<>();
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private Instrumentation() {
+    }
+
+    // Called by Lexer for every token with the time spent reading it
+    static void tokenLexed(long nanos) {
+        tokens.increment();
+        lexNanos.add(nanos);
+    }
+
+    // Called by PackedLexer once per input
+    static void tokensLexed(int count, long nanos) {
+        tokens.add(count);
+        lexNanos.add(nanos);
+    }
+
+    static void nodeCreated() {
+        nodesCreated.increment();
+    }
+
+    static void analyzerVisit() {
+        analyzerVisits.increment();
+    }
+
+    static void interpreterVisit() {
+        interpreterVisits.increment();
+    }
+
+    static void symbolLookup() {
+        symbolLookups.increment();
+    }
+
+    // Starts a phase. Returns null when neither instrumentation nor a JFR recording wants it
+    public static PhaseTimer begin(String phase) {
+        PhaseEvent event = new PhaseEvent();
+        if (!ENABLED && !event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return new PhaseTimer(phase, System.nanoTime(), allocatedBytes(), event);
+    }
+
+    // Ends a phase started by begin
+    public static void end(PhaseTimer timer) {
+        if (timer == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - timer.startNanos;
+        long allocated = allocatedBytes() - timer.startAllocated;
+        timer.event.end();
+        if (timer.event.shouldCommit()) {
+            timer.event.phase = timer.phase;
+            timer.event.allocatedBytes = allocated;
+            timer.event.commit();
+        }
+        if (ENABLED) {
+            synchronized (phases) {
+                long[] totals = phases.computeIfAbsent(timer.phase, name -> new long[2]);
+                totals[0] += nanos;
+                totals[1] += allocated;
+            }
+        }
+    }
+
+    // Returns everything measured so far as one JSON object and commits the counters as a JFR event. Lexing
+    // happens while parsing, so its time is reported both inside "parse" and on its own as "lexNanos"
+    public static String summary() {
+        CountersEvent event = new CountersEvent();
+        event.tokens = tokens.sum();
+        event.lexNanos = lexNanos.sum();
+        event.nodesCreated = nodesCreated.sum();
+        event.analyzerVisits = analyzerVisits.sum();
+        event.interpreterVisits = interpreterVisits.sum();
+        event.symbolLookups = symbolLookups.sum();
+        event.commit();
+
+        StringBuilder json = new StringBuilder("{\"enabled\":").append(ENABLED).append(",\"phases\":{");
+        synchronized (phases) {
+            boolean first = true;
+            for (Map.Entry<String, long[]> entry : phases.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append('"').append(entry.getKey()).append("\":{\"nanos\":").append(entry.getValue()[0])
+                        .append(",\"allocatedBytes\":").append(entry.getValue()[1]).append('}');
+            }
+        }
+        json.append("},\"tokens\":").append(event.tokens)
+                .append(",\"lexNanos\":").append(event.lexNanos)
+                .append(",\"nodesCreated\":").append(event.nodesCreated)
+                .append(",\"analyzerVisits\":").append(event.analyzerVisits)
+                .append(",\"interpreterVisits\":").append(event.interpreterVisits)
+                .append(",\"symbolLookups\":").append(event.symbolLookups)
+                .append('}');
+        return json.toString();
+    }
+
+    // Bytes allocated by the current thread so far, -1 where the JVM can't tell
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,209 @@
+package interpreter;
+
+import java.util.Arrays;
+
+// Interprets abstract syntax tree
+public class Interpreter {
+    private AST tree;  // Root of AST
+    private AstArena arena;  // Program in arena form, used instead of tree when set
+    private SemanticAnalyzer analyzer;  // Semantic analyzer
+    private int[] frame;  // Variable values, indexed by slot assigned by SemanticAnalyzer
+    private SymbolTable symbolTable;  // Name/value table, rebuilt from frame only for output
+    private Profiler profiler;  // Times every visit when set
+
+    // Constructor takes in AST and semantic analyzer
+    public Interpreter(AST tree, SemanticAnalyzer analyzer) {
+        this.tree = tree;
+        this.analyzer = analyzer;
+    }
+
+    // Constructor takes in program in arena form and semantic analyzer
+    public Interpreter(AstArena arena, SemanticAnalyzer analyzer) {
+        this.arena = arena;
+        this.analyzer = analyzer;
+    }
+
+    // Constructor for running a program one statement at a time with executeStatement
+    public Interpreter(SemanticAnalyzer analyzer) {
+        this.analyzer = analyzer;
+        this.frame = new int[16];
+    }
+
+    // Profiles every following visit
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    // Entry point for Interpreter. Dispatches node to appropriate method
+    public int visit(AST node) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.interpreterVisit();
+        }
+        if (profiler != null) {
+            profiler.enter(node);
+            try {
+                return dispatch(node);
+            } finally {
+                profiler.exit(node);
+            }
+        }
+        return dispatch(node);
+    }
+
+    private int dispatch(AST node) {
+        if (node instanceof BinOp) {
+            return visitBinOp((BinOp) node);
+        } else if (node instanceof Num) {
+            return visitNum((Num) node);
+        } else if (node instanceof UnaryOp) {
+            return visitUnaryOp((UnaryOp) node);
+        } else if (node instanceof Compound) {
+            return visitCompound((Compound) node);
+        } else if (node instanceof Assign) {
+            return visitAssign((Assign) node);
+        } else if (node instanceof Var) {
+            return visitVar((Var) node);
+        } else if (node instanceof NoOp) {
+            return visitNoOp((NoOp) node);
+        } else {
+            throw new RuntimeException("Invalid node type");
+        }
+    }
+
+    // Interprets binary operations (+, -, *)
+    private int visitBinOp(BinOp node) {
+        if (node.op.type == TokenType.PLUS) {
+            return visit(node.left) + visit(node.right);
+        } else if (node.op.type == TokenType.MINUS) {
+            return visit(node.left) - visit(node.right);
+        } else if (node.op.type == TokenType.MUL) {
+            return visit(node.left) * visit(node.right);
+        } else {
+            throw new RuntimeException("Invalid operator");
+        }
+    }
+
+    // Interprets number nodes by returning their value, parsed once by the Num constructor
+    private int visitNum(Num node) {
+        return node.value;
+    }
+
+    // Interprets unary operations (+, -)
+    private int visitUnaryOp(UnaryOp node) {
+        if (node.op.type == TokenType.PLUS) {
+            return +visit(node.expr);
+        } else if (node.op.type == TokenType.MINUS) {
+            return -visit(node.expr);
+        } else {
+            throw new RuntimeException("Invalid operator");
+        }
+    }
+
+    // Interprets compound nodes by visiting all of their children
+    private int visitCompound(Compound node) {
+        for (AST child : node.children) {
+            visit(child);
+        }
+        return 0;  // Return value doesn't matter for compound nodes
+    }
+
+    // Interprets assignment nodes by evaluating expression and storing it in the variable's frame slot
+    private int visitAssign(Assign node) {
+        int value = visit(node.right);
+        frame[node.left.slot] = value;
+        return value;  // Return value is value of expression
+    }
+
+    // Interprets variable nodes by reading their frame slot. SemanticAnalyzer guarantees it was written before
+    private int visitVar(Var node) {
+        return frame[node.slot];
+    }
+
+    // Interprets NoOp nodes.
+    private int visitNoOp(NoOp node) {
+        return 0;  // NoOp nodes don't have a value
+    }
+
+    // Interprets arena node. Slots of arena programs are symbol ids
+    private int visitArena(int node) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.interpreterVisit();
+        }
+        switch (arena.kinds[node]) {
+            case AstArena.NUM:
+                return arena.values[node];
+            case AstArena.VAR:
+                return frame[arena.values[node]];
+            case AstArena.BINOP: {
+                int left = visitArena(arena.left[node]);
+                int right = visitArena(arena.right[node]);
+                if (arena.ops[node] == TokenType.PLUS.ordinal()) {
+                    return left + right;
+                } else if (arena.ops[node] == TokenType.MINUS.ordinal()) {
+                    return left - right;
+                }
+                return left * right;
+            }
+            case AstArena.UNARYOP: {
+                int value = visitArena(arena.left[node]);
+                return arena.ops[node] == TokenType.MINUS.ordinal() ? -value : value;
+            }
+            case AstArena.ASSIGN: {
+                int value = visitArena(arena.left[node]);
+                frame[arena.values[node]] = value;
+                return value;
+            }
+            default:
+                throw new RuntimeException("Invalid node type");
+        }
+    }
+
+    // Runs semantic analyzer and then interpreter, without printing anything
+    public void execute() {
+        if (arena != null) {
+            analyzer.visit(arena);
+            frame = new int[analyzer.getSlotCount()];
+            for (int i = 0; i < arena.statementCount; i++) {
+                visitArena(arena.statements[i]);
+            }
+            return;
+        }
+
+        // Starts by running semantic analyzer on AST to catch semantic errors before interpreting
+        analyzer.visit(tree);
+        frame = new int[analyzer.getSlotCount()];
+
+        // Starts interpreting from root of AST. Traverses the entire tree, interpreting each node along the way
+        visit(tree);
+    }
+
+    // Checks and runs one statement against the variables left by earlier statements. The statement isn't
+    // kept, so memory only grows with the number of distinct variables
+    public void executeStatement(AST statement) {
+        analyzer.visit(statement);
+        if (analyzer.getSlotCount() > frame.length) {
+            frame = Arrays.copyOf(frame, Math.max(frame.length * 2, analyzer.getSlotCount()));
+        }
+        visit(statement);
+    }
+
+    // Entry point for interpretation process. Executes the program and prints out its variables
+    public void interpret() {
+        execute();
+        printVariables();
+    }
+
+    // Rebuilds name/value table from slots and returns it
+    public SymbolTable getSymbolTable() {
+        symbolTable = new SymbolTable();
+        for (int slot = 0; slot < analyzer.getSlotCount(); slot++) {
+            symbolTable.define(analyzer.getSlotName(slot), frame[slot]);
+        }
+        return symbolTable;
+    }
+
+    // Prints out values of all variables, sorted by name
+    public void printVariables() {
+        VariableWriter.write(getSymbolTable(), System.out);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+package interpreter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Interprets a tree of any depth without recursion. Each statement's expression is evaluated post-order with
+// an explicit stack of pending nodes and a stack of computed values, so nesting costs heap, not JVM frames.
+// Variables are resolved as they are read, with the checks and errors of SemanticAnalyzer, since the
+// analyzer's own walk is recursive too. All evaluation state lives in fields, so a run can stop after any
+// step and continue later, which is how TenantScheduler time-slices programs. Variables live in a SymbolStore,
+// private to this program unless a shared one is given. On a shared store each statement runs whole, with the
+// cells it reads and writes locked, so it never holds locks across slices
+public class IterativeInterpreter {
+    private List<AST> statements;  // Top-level statements
+    private int nextStatement = 0;  // Index of the statement to start after the current one
+    private Assign current;  // Statement being evaluated, null between statements
+    private long stepCount = 0;  // Nodes evaluated so far
+    private final SymbolStore store;
+    private final boolean shared;
+    private int[] statementSlots = new int[16];  // Cells locked by the statement running on a shared store
+
+    // Pending nodes and how many of their children were already pushed
+    private AST[] nodes = new AST[64];
+    private byte[] states = new byte[64];
+    private int top = -1;  // Index of topmost pending node, -1 when none
+    // Values of completed nodes
+    private int[] values = new int[64];
+    private int valueCount = 0;
+
+    // Constructor takes in AST
+    public IterativeInterpreter(AST tree) {
+        this(tree, new LocalSymbolStore());
+    }
+
+    // Constructor takes in AST and store its variables are read from and written to
+    public IterativeInterpreter(AST tree, SymbolStore store) {
+        this.statements = tree instanceof Compound ? ((Compound) tree).children : Collections.singletonList(tree);
+        this.store = store;
+        this.shared = store.isShared();
+    }
+
+    // Runs every statement, without printing anything
+    public void execute() {
+        run(Long.MAX_VALUE);
+    }
+
+    // Evaluates at most budget nodes and stops, possibly inside an expression. Returns true once every
+    // statement has run
+    public boolean run(long budget) {
+        long steps = 0;
+        try {
+            while (true) {
+                if (top < 0) {
+                    if (current != null) {
+                        store(current, values[--valueCount]);
+                        current = null;
+                    }
+                    while (nextStatement < statements.size() && !(statements.get(nextStatement) instanceof Assign)) {
+                        nextStatement++;  // NoOp
+                    }
+                    if (nextStatement == statements.size()) {
+                        return true;
+                    }
+                    if (steps >= budget) {
+                        return false;
+                    }
+                    current = (Assign) statements.get(nextStatement++);
+                    if (shared) {
+                        steps += runLocked(current);
+                        current = null;
+                        continue;
+                    }
+                    top = push(-1, current.right);
+                } else if (steps >= budget) {
+                    return false;
+                }
+                step();
+                steps++;
+            }
+        } finally {
+            stepCount += steps;
+        }
+    }
+
+    // Returns number of nodes evaluated so far
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    // Returns bytes held by variables and by the entries on the evaluation stacks, so a program that defined
+    // nothing costs nothing between statements. A shared store belongs to no one program and is not counted, nor
+    // are node trees, which are shared with the parser
+    public long estimateMemory() {
+        long bytes = 9L * (top + 1) + 4L * valueCount;
+        return shared ? bytes : bytes + store.sizeInBytes();
+    }
+
+    // Runs program and prints out values of all variables
+    public void interpret() {
+        execute();
+        VariableWriter.write(getSymbolTable(), System.out);
+    }
+
+    // Builds name/value table from the store. Of a shared store, this is a snapshot of every program's variables
+    public SymbolTable getSymbolTable() {
+        return store.snapshot();
+    }
+
+    // Stores value of evaluated statement. The target is defined only now, after its right side was checked,
+    // the order SemanticAnalyzer checks them in
+    private void store(Assign assign, int value) {
+        store.set(store.slot(assign.left.value), value);
+    }
+
+    // Evaluates statement in one go with the cells of its target and of every variable it reads locked, so no
+    // other program writes them in between. Returns number of nodes evaluated
+    private long runLocked(Assign assign) {
+        int count = 0;
+        statementSlots[count++] = store.slot(assign.left.value);
+        top = push(-1, assign.right);
+        while (top >= 0) {
+            AST node = nodes[top];
+            nodes[top--] = null;
+            if (node instanceof Var) {
+                if (count == statementSlots.length) {
+                    statementSlots = Arrays.copyOf(statementSlots, count * 2);
+                }
+                statementSlots[count++] = store.slot(((Var) node).value);
+            } else if (node instanceof BinOp) {
+                top = push(top, ((BinOp) node).left);
+                top = push(top, ((BinOp) node).right);
+            } else if (node instanceof UnaryOp) {
+                top = push(top, ((UnaryOp) node).expr);
+            }
+        }
+        long steps = 0;
+        long token = store.lock(statementSlots, count);
+        try {
+            top = push(-1, assign.right);
+            while (top >= 0) {
+                step();
+                steps++;
+            }
+            store(assign, values[--valueCount]);
+        } finally {
+            store.unlock(token);
+        }
+        return steps;
+    }
+
+    // Evaluates one step of the current expression, post-order. A binary node takes three steps: to push its
+    // left operand, to push its right operand, and to combine both values
+    private void step() {
+        AST node = nodes[top];
+        if (node instanceof Num) {
+            nodes[top--] = null;
+            pushValue(((Num) node).value);
+        } else if (node instanceof Var) {
+            int value = store.get(resolve((Var) node));
+            nodes[top--] = null;
+            pushValue(value);
+        } else if (node instanceof BinOp) {
+            BinOp binOp = (BinOp) node;
+            if (states[top] < 2) {
+                AST child = states[top] == 0 ? binOp.left : binOp.right;
+                states[top]++;
+                top = push(top, child);
+                return;
+            }
+            nodes[top--] = null;
+            int right = values[--valueCount];
+            int left = values[--valueCount];
+            if (binOp.op.type == TokenType.PLUS) {
+                pushValue(left + right);
+            } else if (binOp.op.type == TokenType.MINUS) {
+                pushValue(left - right);
+            } else if (binOp.op.type == TokenType.MUL) {
+                pushValue(left * right);
+            } else {
+                throw new RuntimeException("Invalid operator");
+            }
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            if (states[top] == 0) {
+                states[top] = 1;
+                top = push(top, unaryOp.expr);
+                return;
+            }
+            nodes[top--] = null;
+            if (unaryOp.op.type == TokenType.MINUS) {
+                values[valueCount - 1] = -values[valueCount - 1];
+            } else if (unaryOp.op.type != TokenType.PLUS) {
+                throw new RuntimeException("Invalid operator");
+            }
+        } else {
+            throw new RuntimeException("Invalid node type");
+        }
+    }
+
+    // Pushes node above top and returns its index
+    private int push(int top, AST node) {
+        top++;
+        if (top == nodes.length) {
+            nodes = Arrays.copyOf(nodes, top * 2);
+            states = Arrays.copyOf(states, top * 2);
+        }
+        nodes[top] = node;
+        states[top] = 0;
+        return top;
+    }
+
+    private void pushValue(int value) {
+        if (valueCount == values.length) {
+            values = Arrays.copyOf(values, valueCount * 2);
+        }
+        values[valueCount++] = value;
+    }
+
+    // Returns slot of variable, which must have been assigned by an earlier statement, or on a shared store by
+    // any program
+    private int resolve(Var node) {
+        int slot = store.find(node.value);
+        if (slot < 0 || !store.isDefined(slot)) {
+            throw new SemanticAnalyzerException("Error: Variable not found " + node.value);
+        }
+        return slot;
+    }
+}
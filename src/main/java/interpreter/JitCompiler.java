@@ -0,0 +1,457 @@
+package interpreter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Growable buffer of JVM instructions
+final class CodeBuffer {
+    // JVM opcodes used by JitCompiler
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC = 0x12;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD_0 = 0x2a;
+    static final int IALOAD = 0x2e;
+    static final int ISTORE = 0x36;
+    static final int ASTORE_0 = 0x4b;
+    static final int IASTORE = 0x4f;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int IMUL = 0x68;
+    static final int INEG = 0x74;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int INVOKESTATIC = 0xb8;
+    static final int NEWARRAY = 0xbc;
+    static final int WIDE = 0xc4;
+    static final int T_INT = 10;
+
+    byte[] bytes = new byte[256];
+    int length = 0;
+
+    void u1(int value) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    void u2(int value) {
+        u1(value >>> 8);
+        u1(value);
+    }
+
+    // Appends another buffer
+    void append(CodeBuffer other) {
+        for (int i = 0; i < other.length; i++) {
+            u1(other.bytes[i]);
+        }
+    }
+
+    // Pushes int constant with the shortest encoding
+    void pushInt(int value, ClassFileWriter classFile) {
+        if (value >= -1 && value <= 5) {
+            u1(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            u1(BIPUSH);
+            u1(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            u1(SIPUSH);
+            u2(value);
+        } else {
+            int index = classFile.integer(value);
+            if (index < 256) {
+                u1(LDC);
+                u1(index);
+            } else {
+                u1(LDC_W);
+                u2(index);
+            }
+        }
+    }
+
+    // Emits iload/istore, widened when the local index needs two bytes
+    void local(int opcode, int index) {
+        if (index < 256) {
+            u1(opcode);
+            u1(index);
+        } else {
+            u1(WIDE);
+            u1(opcode);
+            u2(index);
+        }
+    }
+}
+
+// Writes class files holding only static methods without branches, so no stack map frames are needed
+final class ClassFileWriter {
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;  // Constant pool indices start at 1
+
+    private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+    private final DataOutputStream methods = new DataOutputStream(methodBytes);
+    private int methodCount = 0;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int codeName;
+
+    // Constructor takes in internal name of the class, e.g. interpreter/Script
+    ClassFileWriter(String className) {
+        thisClass = classRef(className);
+        superClass = classRef("java/lang/Object");
+        codeName = utf8("Code");
+    }
+
+    int utf8(String value) {
+        Integer index = poolIndex.get("U" + value);
+        if (index == null) {
+            index = add("U" + value, 1);
+            write(() -> pool.writeUTF(value));
+        }
+        return index;
+    }
+
+    int integer(int value) {
+        Integer index = poolIndex.get("I" + value);
+        if (index == null) {
+            index = add("I" + value, 3);
+            write(() -> pool.writeInt(value));
+        }
+        return index;
+    }
+
+    int classRef(String name) {
+        int nameIndex = utf8(name);
+        Integer index = poolIndex.get("C" + name);
+        if (index == null) {
+            index = add("C" + name, 7);
+            write(() -> pool.writeShort(nameIndex));
+        }
+        return index;
+    }
+
+    // Returns reference to a static method of the class being written
+    int ownMethodRef(String name, String descriptor) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        Integer nameAndType = poolIndex.get("N" + name + descriptor);
+        if (nameAndType == null) {
+            nameAndType = add("N" + name + descriptor, 12);
+            write(() -> {
+                pool.writeShort(nameIndex);
+                pool.writeShort(descriptorIndex);
+            });
+        }
+        int nameAndTypeIndex = nameAndType;
+        Integer index = poolIndex.get("M" + name + descriptor);
+        if (index == null) {
+            index = add("M" + name + descriptor, 10);
+            write(() -> {
+                pool.writeShort(thisClass);
+                pool.writeShort(nameAndTypeIndex);
+            });
+        }
+        return index;
+    }
+
+    // Adds public static method with given code
+    void addMethod(String name, String descriptor, CodeBuffer code, int maxStack, int maxLocals) {
+        if (code.length > 65535) {
+            throw new UnsupportedOperationException("Method too large: " + name);
+        }
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        write(() -> {
+            methods.writeShort(0x0009);  // ACC_PUBLIC | ACC_STATIC
+            methods.writeShort(nameIndex);
+            methods.writeShort(descriptorIndex);
+            methods.writeShort(1);  // Code attribute only
+            methods.writeShort(codeName);
+            methods.writeInt(12 + code.length);
+            methods.writeShort(maxStack);
+            methods.writeShort(maxLocals);
+            methods.writeInt(code.length);
+            methods.write(code.bytes, 0, code.length);
+            methods.writeShort(0);  // No exception table
+            methods.writeShort(0);  // No attributes
+        });
+        methodCount++;
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(61);  // Java 17 class file
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(0x0031);  // ACC_PUBLIC | ACC_FINAL | ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);  // No interfaces
+            out.writeShort(0);  // No fields
+            out.writeShort(methodCount);
+            methodBytes.writeTo(out);
+            out.writeShort(0);  // No attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private int add(String key, int tag) {
+        if (poolCount >= 65535) {
+            throw new UnsupportedOperationException("Constant pool too large");
+        }
+        write(() -> pool.writeByte(tag));
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    private static void write(Write write) {
+        try {
+            write.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
+
+// A program compiled to a hidden JVM class. run() can be called any number of times, from any thread
+final class JitProgram {
+    private final MethodHandle run;  // static int[] run()
+    private final String[] slotNames;  // Variable name of each slot
+
+    JitProgram(MethodHandle run, String[] slotNames) {
+        this.run = run;
+        this.slotNames = slotNames;
+    }
+
+    // Runs the program and returns final variable values, indexed by slot
+    public int[] run() {
+        try {
+            return (int[]) run.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Runs the program and prints out values of all variables, in the same order as Interpreter.interpret
+    public void interpret() {
+        int[] frame = run();
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < frame.length; slot++) {
+            symbolTable.define(slotNames[slot], frame[slot]);
+        }
+        VariableWriter.write(symbolTable, System.out);
+    }
+}
+
+// Compiles a checked AST to a JVM class and loads it as a hidden class, so HotSpot compiles the program
+// itself. Variables live in JVM locals and operators become iadd/isub/imul/ineg, which wrap on overflow
+// exactly like Interpreter. Statements are split across methods so each stays small enough to be JIT-compiled
+public class JitCompiler {
+    // Code bytes per method before a new one is started. HotSpot doesn't compile methods over 8000 bytes
+    private static final int CHUNK_LIMIT = 7000;
+
+    // Most code bytes one slot can add to the loads on entry and stores on exit of a chunk
+    private static final int SLOT_OVERHEAD = 18;
+
+    private final ClassFileWriter classFile = new ClassFileWriter("interpreter/CompiledScript");
+    private final int slotCount;
+
+    // Chunk methods written so far
+    private final List<String> chunks = new ArrayList<>();
+
+    // State of the chunk method being compiled. Local 0 holds the frame array
+    private CodeBuffer body = new CodeBuffer();
+    private int[] localOfSlot;  // Local of each slot in current chunk, 0 when it has none yet
+    private final List<Integer> touchedSlots = new ArrayList<>();
+    private boolean[] loadOnEntry;  // Slot is read before it is assigned in current chunk
+    private boolean[] storeOnExit;  // Slot is assigned in current chunk
+    private int stackDepth = 0;
+    private int maxStack = 0;
+
+    private JitCompiler(int slotCount) {
+        this.slotCount = slotCount;
+        this.localOfSlot = new int[slotCount];
+        this.loadOnEntry = new boolean[slotCount];
+        this.storeOnExit = new boolean[slotCount];
+    }
+
+    // Compiles AST that SemanticAnalyzer has already checked, so every Var carries its slot
+    public static JitProgram compile(AST tree, SemanticAnalyzer analyzer) {
+        JitCompiler compiler = new JitCompiler(analyzer.getSlotCount());
+        compiler.visitStatements(tree);
+        compiler.finishChunk();
+        byte[] bytes = compiler.finishClass();
+
+        String[] slotNames = new String[analyzer.getSlotCount()];
+        for (int slot = 0; slot < slotNames.length; slot++) {
+            slotNames[slot] = analyzer.getSlotName(slot);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle run = lookup.findStatic(lookup.lookupClass(), "run", MethodType.methodType(int[].class));
+            return new JitProgram(run, slotNames);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Compiles statements in order, starting a new chunk method whenever the current one is full
+    private void visitStatements(AST node) {
+        if (node instanceof Compound) {
+            for (AST child : ((Compound) node).children) {
+                visitStatements(child);
+            }
+        } else if (node instanceof Assign) {
+            if (body.length + SLOT_OVERHEAD * touchedSlots.size() > CHUNK_LIMIT) {
+                finishChunk();
+            }
+            visitAssign((Assign) node);
+        } else if (!(node instanceof NoOp)) {
+            throw new RuntimeException("Invalid node type");
+        }
+    }
+
+    // Right side is compiled before the target local is touched, same order as Interpreter.visitAssign
+    private void visitAssign(Assign node) {
+        visit(node.right);
+        int slot = node.left.slot;
+        body.local(CodeBuffer.ISTORE, local(slot, false));
+        storeOnExit[slot] = true;
+        stackDepth--;
+    }
+
+    // Emits code leaving value of expression on the operand stack
+    private void visit(AST node) {
+        if (node instanceof Num) {
+            body.pushInt(((Num) node).value, classFile);
+            push();
+        } else if (node instanceof Var) {
+            body.local(CodeBuffer.ILOAD, local(((Var) node).slot, true));
+            push();
+        } else if (node instanceof BinOp) {
+            BinOp binOp = (BinOp) node;
+            visit(binOp.left);
+            visit(binOp.right);
+            if (binOp.op.type == TokenType.PLUS) {
+                body.u1(CodeBuffer.IADD);
+            } else if (binOp.op.type == TokenType.MINUS) {
+                body.u1(CodeBuffer.ISUB);
+            } else if (binOp.op.type == TokenType.MUL) {
+                body.u1(CodeBuffer.IMUL);
+            } else {
+                throw new RuntimeException("Invalid operator");
+            }
+            stackDepth--;
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            visit(unaryOp.expr);
+            if (unaryOp.op.type == TokenType.MINUS) {
+                body.u1(CodeBuffer.INEG);
+            } else if (unaryOp.op.type != TokenType.PLUS) {
+                throw new RuntimeException("Invalid operator");
+            }
+        } else {
+            throw new RuntimeException("Invalid node type");
+        }
+    }
+
+    // Returns local holding slot in current chunk. A slot first touched by a read was assigned in an
+    // earlier chunk, so its value is loaded from the frame on entry
+    private int local(int slot, boolean read) {
+        if (localOfSlot[slot] == 0) {
+            touchedSlots.add(slot);
+            localOfSlot[slot] = touchedSlots.size();
+            loadOnEntry[slot] = read;
+        }
+        return localOfSlot[slot];
+    }
+
+    private void push() {
+        stackDepth++;
+        maxStack = Math.max(maxStack, stackDepth);
+    }
+
+    // Wraps current body in loads and stores of the frame and adds it as method chunkN([I)V
+    private void finishChunk() {
+        if (body.length == 0) {
+            return;
+        }
+        CodeBuffer code = new CodeBuffer();
+        for (int slot : touchedSlots) {
+            if (loadOnEntry[slot]) {
+                code.u1(CodeBuffer.ALOAD_0);
+                code.pushInt(slot, classFile);
+                code.u1(CodeBuffer.IALOAD);
+                code.local(CodeBuffer.ISTORE, localOfSlot[slot]);
+            }
+        }
+        code.append(body);
+        for (int slot : touchedSlots) {
+            if (storeOnExit[slot]) {
+                code.u1(CodeBuffer.ALOAD_0);
+                code.pushInt(slot, classFile);
+                code.local(CodeBuffer.ILOAD, localOfSlot[slot]);
+                code.u1(CodeBuffer.IASTORE);
+            }
+        }
+        code.u1(CodeBuffer.RETURN);
+
+        String name = "chunk" + chunks.size();
+        classFile.addMethod(name, "([I)V", code, Math.max(maxStack, 3), touchedSlots.size() + 1);
+        chunks.add(name);
+
+        for (int slot : touchedSlots) {
+            localOfSlot[slot] = 0;
+            loadOnEntry[slot] = false;
+            storeOnExit[slot] = false;
+        }
+        touchedSlots.clear();
+        body = new CodeBuffer();
+        maxStack = 0;
+    }
+
+    // Adds static int[] run() that allocates the frame and calls every chunk in order
+    private byte[] finishClass() {
+        CodeBuffer run = new CodeBuffer();
+        run.pushInt(slotCount, classFile);
+        run.u1(CodeBuffer.NEWARRAY);
+        run.u1(CodeBuffer.T_INT);
+        run.u1(CodeBuffer.ASTORE_0);
+        for (String chunk : chunks) {
+            run.u1(CodeBuffer.ALOAD_0);
+            run.u1(CodeBuffer.INVOKESTATIC);
+            run.u2(classFile.ownMethodRef(chunk, "([I)V"));
+        }
+        run.u1(CodeBuffer.ALOAD_0);
+        run.u1(CodeBuffer.ARETURN);
+        classFile.addMethod("run", "()[I", run, 1, 1);
+        return classFile.toByteArray();
+    }
+}
@@ -1,3 +1,9 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
 // Token class defines tokens in language
 class Token {
     // Token type
@@ -28,26 +34,66 @@ enum TokenType {
 
 // Lexer class reads characters from input and groups them into tokens
 public class Lexer {
+    // Size of the window of characters held at once when reading from a Reader
+    private static final int BUFFER_SIZE = 8192;
+
     // Input string to tokenize
     private String input;
 
-    // Index of current character in input string
+    // Reader to pull input from, null when input is a string
+    private Reader reader;
+
+    // Window of characters read from reader, and number of them that are valid
+    private char[] buffer;
+    private int limit = 0;
+
+    // Index of current character in input string, or in buffer when reading from a Reader
     private int pos = 0;
 
     // Current character in input string
     private char currentChar;
 
+    // Line and column of current character, both 1-based
+    private int line = 1;
+    private int column = 1;
+
+    // Line and column of the first character of the last token returned
+    private int tokenLine = 1;
+    private int tokenColumn = 1;
+
     // Constructor: initializes new Lexer with an input string
     public Lexer(String input) {
         this.input = input;
+        // Starts with first character of input, or at end of input when there is none
+        currentChar = input.isEmpty() ? '\0' : input.charAt(pos);
+    }
+
+    // Constructor: initializes new Lexer that reads input from a Reader through a bounded buffer,
+    // so input of any size is lexed without holding all of it in memory
+    public Lexer(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
         // Starts with first character of input
-        currentChar = input.charAt(pos);
+        pos = -1;
+        column = 0;
+        advance();
     }
 
     // Moves to next character in input
     private void advance() {
+        if (currentChar == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
         // Moves to next character
         pos++;
+        // Reading from a Reader refills the buffer once it is used up
+        if (reader != null) {
+            currentChar = pos < limit || fill() ? buffer[pos] : '\0';
+            return;
+        }
         // At end of input sets currentChar to null character
         if (pos >= input.length()) {
             currentChar = '\0';
@@ -57,8 +103,36 @@ public class Lexer {
         }
     }
 
-    private void error() throws Exception {
-        ErrorHandler.error("Invalid character: " + (char) currentChar);
+    // Reads next window of characters into buffer. Returns false at end of input
+    private boolean fill() {
+        try {
+            do {
+                limit = reader.read(buffer, 0, buffer.length);
+            } while (limit == 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pos = 0;
+        return limit > 0;
+    }
+
+    // Skips the invalid character before throwing, so a caller recovering from the error lexes on after it
+    private void error() throws LexerException {
+        char invalid = currentChar;
+        int errorLine = line;
+        int errorColumn = column;
+        advance();
+        throw new LexerException("Error: Invalid character: " + invalid, errorLine, errorColumn);
+    }
+
+    // Returns line of the last token returned
+    public int getTokenLine() {
+        return tokenLine;
+    }
+
+    // Returns column of the last token returned
+    public int getTokenColumn() {
+        return tokenColumn;
     }
     
     // Skips whitespace characters in input
@@ -95,8 +169,19 @@ public class Lexer {
         return new Token(TokenType.IDENTIFIER, result.toString());
     }
 
-       // Reads the next token from input
-       public Token getNextToken() throws Exception {
+    // Reads the next token from input, timing it when instrumentation is on
+    public Token getNextToken() throws LexerException {
+        if (!Instrumentation.ENABLED) {
+            return scanToken();
+        }
+        long start = System.nanoTime();
+        Token token = scanToken();
+        Instrumentation.tokenLexed(System.nanoTime() - start);
+        return token;
+    }
+
+    // Reads the next token from input
+    private Token scanToken() throws LexerException {
         // Continues until all characters in the input are read
         while (currentChar != '\0') {
             // If current character is whitespace skip it and continue to next character
@@ -104,6 +189,8 @@ public class Lexer {
                 skipWhitespace();
                 continue;
             }
+            tokenLine = line;
+            tokenColumn = column;
 
             // If current character is a digit, return an INTEGER token
             if (Character.isDigit(currentChar)) {
@@ -150,6 +237,8 @@ public class Lexer {
         }
 
         // If all characters in the input are read, return an EOF token.
+        tokenLine = line;
+        tokenColumn = column;
         return new Token(TokenType.EOF, "");
     }   
 }
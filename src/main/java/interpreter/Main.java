@@ -0,0 +1,583 @@
+package interpreter;
+
+// Imports for user input handling
+import java.util.Scanner;
+
+// Imports for streaming input
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+// Imports for data handling
+import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Arrays;
+
+// Imports for error handling
+import java.lang.Exception;
+
+public class Main {
+    public static void main(String[] args) {
+        // Execution engine: "vm" compiles to bytecode, "jit" to a JVM class, "parallel" runs independent
+        // statements concurrently, "nodes" runs self-specializing executable nodes, "tree" walks the AST and is
+        // kept as the reference
+        String engine = "vm";
+        // Whether an engine was asked for, modes that only run on one engine reject any other
+        boolean engineGiven = false;
+        // Prints statistics about the run to stderr
+        boolean stats = false;
+        // Runs input one statement at a time in bounded memory instead of reading one line
+        boolean stream = false;
+        // Keeps program parsed between edits and re-executes only what an edit affects
+        boolean repl = false;
+        // Runs many programs in one JVM, from the given files or from NDJSON lines on stdin
+        boolean batch = false;
+        // Checks the given files and directories for every error without running them
+        boolean check = false;
+        // Lexes and parses the program file in parallel chunks instead of reading one line from stdin
+        boolean chunked = false;
+        // Most batch programs running at once
+        int concurrency = 256;
+        // Time-slices many programs of many tenants over a few carrier threads, from the given files or from
+        // NDJSON lines on stdin. Each slice evaluates at most quantum nodes, and a program fails once it exceeds
+        // its step, CPU or memory budget (0 is unlimited)
+        boolean schedule = false;
+        int carriers = Runtime.getRuntime().availableProcessors();
+        long quantum = 10000;
+        long maxSteps = 0;
+        long maxCpuMillis = 0;
+        long maxMemory = 0;
+        // Scheduled programs share one namespace of global variables, initialized by an optional program file
+        boolean shared = false;
+        String sharedInitFile = null;
+        // Measures every phase and prints a JSON summary to stderr at the end
+        boolean instrument = false;
+        // Runs on the tree-walking Interpreter, timing every node, and prints a hot-spot report to stderr.
+        // Given a file, also writes the call tree there as collapsed stacks for flame graph tools
+        boolean profile = false;
+        String profileFile = null;
+        // Arithmetic: "int" wraps on overflow like Java ints, "wide" promotes overflowing values to long and
+        // BigInteger and accepts literals of any size
+        String arithmetic = "int";
+        // Optimization: "basic" folds constants and strips identity operations, "dataflow" also removes dead
+        // stores and computes repeated subexpressions once, which pays off only for programs that have them
+        String optimize = "basic";
+        // CSV file of input columns, header names the input variables. Runs the program once per row
+        String columnsFile = null;
+        // Directory of the compiled program cache, none when not given
+        String cacheDirectory = null;
+        // File interpreter state is saved to, and statements run between saves (0 saves only at the end)
+        String snapshotFile = null;
+        long snapshotEvery = 0;
+        // Snapshot to continue from, taken earlier of the same program
+        String resumeFile = null;
+        // Program file for streaming mode or to preload into the REPL, stdin when not given
+        String inputFile = null;
+        // Every file given, run one by one in batch mode
+        List<String> inputFiles = new ArrayList<>();
+        // Lexer: "classic" produces one Token at a time, "packed" tokenizes whole input into primitive arrays
+        String lexerMode = "classic";
+        // AST form: "objects" builds one object per node, "arena" packs nodes into parallel arrays
+        String astMode = "objects";
+        // Parser: "recursive" descends one JVM frame per nesting level, "iterative" uses explicit stacks and
+        // runs on IterativeInterpreter, so nesting depth is only limited by the heap
+        String parserMode = "recursive";
+        for (String arg : args) {
+            if (arg.startsWith("--engine=")) {
+                engine = arg.substring("--engine=".length());
+                engineGiven = true;
+            } else if (arg.startsWith("--ast=")) {
+                astMode = arg.substring("--ast=".length());
+            } else if (arg.startsWith("--parser=")) {
+                parserMode = arg.substring("--parser=".length());
+            } else if (arg.startsWith("--lexer=")) {
+                lexerMode = arg.substring("--lexer=".length());
+            } else if (arg.equals("--stats")) {
+                stats = true;
+            } else if (arg.equals("--repl")) {
+                repl = true;
+            } else if (arg.equals("--stream")) {
+                stream = true;
+            } else if (arg.equals("--instrument")) {
+                instrument = true;
+            } else if (arg.equals("--profile")) {
+                profile = true;
+            } else if (arg.startsWith("--profile=")) {
+                profile = true;
+                profileFile = arg.substring("--profile=".length());
+            } else if (arg.equals("--batch")) {
+                batch = true;
+            } else if (arg.equals("--schedule")) {
+                schedule = true;
+            } else if (arg.equals("--shared")) {
+                shared = true;
+            } else if (arg.startsWith("--shared=")) {
+                shared = true;
+                sharedInitFile = arg.substring("--shared=".length());
+            } else if (arg.startsWith("--carriers=")) {
+                carriers = Integer.parseInt(arg.substring("--carriers=".length()));
+            } else if (arg.startsWith("--quantum=")) {
+                quantum = Long.parseLong(arg.substring("--quantum=".length()));
+            } else if (arg.startsWith("--max-steps=")) {
+                maxSteps = Long.parseLong(arg.substring("--max-steps=".length()));
+            } else if (arg.startsWith("--max-cpu-ms=")) {
+                maxCpuMillis = Long.parseLong(arg.substring("--max-cpu-ms=".length()));
+            } else if (arg.startsWith("--max-memory=")) {
+                maxMemory = Long.parseLong(arg.substring("--max-memory=".length()));
+            } else if (arg.equals("--check")) {
+                check = true;
+            } else if (arg.equals("--chunked")) {
+                chunked = true;
+            } else if (arg.startsWith("--optimize=")) {
+                optimize = arg.substring("--optimize=".length());
+            } else if (arg.startsWith("--arithmetic=")) {
+                arithmetic = arg.substring("--arithmetic=".length());
+            } else if (arg.startsWith("--columns=")) {
+                columnsFile = arg.substring("--columns=".length());
+            } else if (arg.startsWith("--cache=")) {
+                cacheDirectory = arg.substring("--cache=".length());
+            } else if (arg.startsWith("--snapshot=")) {
+                snapshotFile = arg.substring("--snapshot=".length());
+            } else if (arg.startsWith("--snapshot-every=")) {
+                snapshotEvery = Long.parseLong(arg.substring("--snapshot-every=".length()));
+            } else if (arg.startsWith("--resume=")) {
+                resumeFile = arg.substring("--resume=".length());
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(arg.substring("--concurrency=".length()));
+            } else if (!arg.startsWith("--")) {
+                if (inputFile == null) {
+                    inputFile = arg;
+                }
+                inputFiles.add(arg);
+            }
+        }
+
+        // Must be set before Instrumentation is first used, since its ENABLED flag is read once
+        if (instrument) {
+            System.setProperty("interpreter.instrument", "true");
+        }
+
+        try {
+            // BATCH
+            // Each program runs on its own virtual thread, results are written in input order
+            if (batch) {
+                BatchRunner runner = new BatchRunner(concurrency, System.out);
+                if (inputFiles.isEmpty()) {
+                    runner.runNdjson(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+                } else {
+                    runner.runFiles(inputFiles);
+                }
+                runner.printSummary(System.err);
+                return;
+            }
+
+            // SCHEDULE
+            // Tenants take turns one slice at a time, results are written in input order
+            if (schedule) {
+                TenantScheduler scheduler = new TenantScheduler(carriers, quantum);
+                if (maxSteps > 0) {
+                    scheduler.setMaxSteps(maxSteps);
+                }
+                if (maxCpuMillis > 0) {
+                    scheduler.setMaxCpuNanos(maxCpuMillis * 1000000);
+                }
+                if (maxMemory > 0) {
+                    scheduler.setMaxMemoryBytes(maxMemory);
+                }
+                SharedSymbolStore sharedStore = null;
+                if (shared) {
+                    sharedStore = new SharedSymbolStore();
+                    if (sharedInitFile != null) {
+                        Parser parser = new Parser(new Lexer(
+                                new String(Files.readAllBytes(Paths.get(sharedInitFile)), StandardCharsets.UTF_8)));
+                        parser.setIterative(true);
+                        new IterativeInterpreter(parser.program(), sharedStore).execute();
+                    }
+                    scheduler.setSharedStore(sharedStore);
+                }
+                if (inputFiles.isEmpty()) {
+                    scheduler.runNdjson(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                            System.out);
+                } else {
+                    scheduler.runFiles(inputFiles, System.out);
+                }
+                scheduler.shutdown();
+                scheduler.printStats(System.err);
+                if (sharedStore != null) {
+                    System.err.println("Shared variables:");
+                    VariableWriter.write(sharedStore.snapshot(), System.err);
+                }
+                return;
+            }
+
+            // CHECK
+            // Files are checked in parallel and every error of every file goes into one JSON report
+            if (check) {
+                CheckRunner checker = new CheckRunner();
+                checker.check(inputFiles);
+                checker.printReport(System.out);
+                return;
+            }
+
+            // REPL
+            // Commands come from stdin, an optional file is loaded as the initial program
+            if (repl) {
+                ReplSession session = new ReplSession();
+                if (inputFile != null) {
+                    session.add(new String(Files.readAllBytes(Paths.get(inputFile)), StandardCharsets.UTF_8));
+                    System.out.println("Loaded " + session.size() + " statements");
+                }
+                session.run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), System.out);
+                return;
+            }
+
+            // STREAMING
+            // Lexes, parses, checks and executes statement by statement, dropping each AST after it runs
+            if (stream) {
+                StreamingInterpreter streaming;
+                if (inputFile != null) {
+                    streaming = new StreamingInterpreter(FileChannel.open(Paths.get(inputFile)));
+                } else {
+                    System.out.println("Enter your program:");
+                    streaming = new StreamingInterpreter(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                }
+                streaming.interpret();
+                return;
+            }
+
+            // Wide arithmetic and profiling each run on one tree interpreter of their own, so options choosing
+            // other stages would silently measure a mode that never ran
+            if (arithmetic.equals("wide") && (engineGiven && !engine.equals("tree") || profile
+                    || !lexerMode.equals("classic") || !astMode.equals("objects") || !parserMode.equals("recursive")
+                    || !optimize.equals("basic") || cacheDirectory != null || columnsFile != null
+                    || snapshotFile != null || resumeFile != null)) {
+                throw new Exception("Error: --arithmetic=wide only runs unoptimized on the tree engine");
+            }
+            if (profile && (engineGiven && !engine.equals("tree") || !astMode.equals("objects")
+                    || !parserMode.equals("recursive") || cacheDirectory != null || columnsFile != null
+                    || snapshotFile != null || resumeFile != null)) {
+                throw new Exception("Error: --profile only runs on the tree engine and the default stages");
+            }
+
+            // Scanner object to handle user input
+            Scanner scanner = new Scanner(System.in);
+
+            // Prompt user to input their program and read it as a String. A chunked program is only ever read
+            // from its file by the parser, so it has no text and only goes through the object AST stages
+            String text = null;
+            if (chunked) {
+                if (inputFile == null) {
+                    throw new Exception("Error: --chunked needs a program file");
+                }
+                if (!arithmetic.equals("int") || columnsFile != null || cacheDirectory != null
+                        || snapshotFile != null || resumeFile != null || !astMode.equals("objects")
+                        || !parserMode.equals("recursive")) {
+                    throw new Exception("Error: --chunked only runs on the default stages");
+                }
+            } else {
+                System.out.println("Enter your program:");
+                text = scanner.nextLine();
+            }
+
+            // WIDE ARITHMETIC
+            // Runs unoptimized on the overflow-aware interpreter, since the other stages assume int wrap-around
+            if (arithmetic.equals("wide")) {
+                Parser parser = new Parser(new Lexer(text));
+                parser.setWideLiterals(true);
+                AST tree = parser.program();
+                WideInterpreter interpreter = new WideInterpreter(tree, new SemanticAnalyzer());
+                interpreter.interpret();
+                if (stats) {
+                    System.err.println("Promoted " + interpreter.getPromotionCount() + " results beyond int");
+                }
+                return;
+            } else if (!arithmetic.equals("int")) {
+                throw new Exception("Unknown arithmetic: " + arithmetic);
+            }
+
+            // COLUMNAR
+            // Program is compiled once and evaluated over all rows of the input columns, chunk by chunk
+            if (columnsFile != null) {
+                runColumns(text, columnsFile);
+                return;
+            }
+
+            // CACHE
+            // A program seen before is loaded as checked bytecode and run on the VM, skipping the front end
+            if (cacheDirectory != null) {
+                ProgramCache cache = new ProgramCache(Paths.get(cacheDirectory), 64L << 20);
+                cache.get(text).execute().print(System.out);
+                if (stats) {
+                    System.err.println(cache.getStats());
+                }
+                return;
+            }
+
+            // SNAPSHOT AND RESUME
+            // Runs statement by statement over a frame that can be saved to and continued from a file. Skips the
+            // dataflow pass, which would change the statements a saved position counts
+            if (snapshotFile != null || resumeFile != null) {
+                AST tree = new Optimizer().optimize(new Parser(new Lexer(text)).program());
+                SemanticAnalyzer analyzer = new SemanticAnalyzer();
+                analyzer.visit(tree);
+                ResumableInterpreter interpreter = new ResumableInterpreter(tree, analyzer, text);
+                if (resumeFile != null) {
+                    interpreter.resume(Paths.get(resumeFile));
+                }
+                if (snapshotFile != null) {
+                    interpreter.setSnapshot(Paths.get(snapshotFile), snapshotEvery);
+                }
+                interpreter.interpret();
+                if (stats) {
+                    System.err.println("Ran up to statement " + interpreter.getPosition() + ", wrote "
+                            + interpreter.getSnapshotCount() + " snapshots");
+                }
+                return;
+            }
+
+            // LEXICAL ANALYSIS AND PARSING
+            // Every phase is timed, the timers do nothing unless instrumentation or a JFR recording is on
+            PhaseTimer phase = Instrumentation.begin("parse");
+            Parser parser = null;
+            if (chunked) {
+                // ChunkedParser maps the file and builds its own PackedLexer and Parser per chunk
+            } else if (lexerMode.equals("packed")) {
+                // Tokenize whole input at once and let Parser read the packed token arrays
+                parser = new Parser(PackedLexer.tokenize(text));
+            } else if (lexerMode.equals("classic")) {
+                // Lexer object with input text, Parser object pulling tokens from it
+                parser = new Parser(new Lexer(text));
+            } else {
+                throw new Exception("Unknown lexer: " + lexerMode);
+            }
+            // Iterative programs skip the later stages, each of which walks the tree recursively
+            if (parserMode.equals("iterative")) {
+                parser.setIterative(true);
+                AST tree = parser.program();
+                Instrumentation.end(phase);
+                phase = Instrumentation.begin("execute");
+                new IterativeInterpreter(tree).interpret();
+                Instrumentation.end(phase);
+                return;
+            } else if (!parserMode.equals("recursive")) {
+                throw new Exception("Unknown parser: " + parserMode);
+            }
+            // Arena programs are checked and run by the tree-walking Interpreter directly
+            if (astMode.equals("arena")) {
+                AstArena arena = parser.programArena();
+                Instrumentation.end(phase);
+                phase = Instrumentation.begin("analyze");
+                SemanticAnalyzer analyzer = new SemanticAnalyzer();
+                analyzer.visit(arena);
+                Instrumentation.end(phase);
+                phase = Instrumentation.begin("execute");
+                new Interpreter(arena, analyzer).interpret();
+                Instrumentation.end(phase);
+                return;
+            } else if (!astMode.equals("objects")) {
+                throw new Exception("Unknown AST form: " + astMode);
+            }
+            // Call program method to generate Abstract Syntax Tree (AST)
+            AST tree = chunked ? ChunkedParser.parse(Paths.get(inputFile)) : parser.program();
+            Instrumentation.end(phase);
+
+            // OPTIMIZATION
+            // Fold constant subtrees and strip identity operations once, before anything walks the tree
+            phase = Instrumentation.begin("optimize");
+            Optimizer optimizer = new Optimizer();
+            tree = optimizer.optimize(tree);
+            Instrumentation.end(phase);
+            if (stats) {
+                System.err.println("Optimizer removed " + optimizer.getRemovedNodeCount() + " nodes");
+            }
+
+            // SEMANTIC ANALYSIS
+            phase = Instrumentation.begin("analyze");
+            // SemanticAnalyzer object
+            SemanticAnalyzer analyzer = new SemanticAnalyzer();
+            // Pass AST to SemanticAnalyzer
+            analyzer.visit(tree);
+            Instrumentation.end(phase);
+
+            if (!optimize.equals("basic") && !optimize.equals("dataflow")) {
+                throw new Exception("Unknown optimization level: " + optimize);
+            }
+
+            // DATAFLOW OPTIMIZATION
+            // Drop stores overwritten before any read and compute repeated subexpressions once. Needs the slots
+            // analysis recorded, and adds temporaries, so the result is analyzed again. Skipped when profiling,
+            // since the report must list the statements as written, not with dead ones dropped and temporaries added
+            if (optimize.equals("dataflow") && !profile) {
+                phase = Instrumentation.begin("dataflow");
+                RedundancyEliminator eliminator = new RedundancyEliminator();
+                tree = eliminator.optimize(tree);
+                analyzer = new SemanticAnalyzer();
+                analyzer.visit(tree);
+                Instrumentation.end(phase);
+                if (stats) {
+                    System.err.println("Removed " + eliminator.getRemovedStoreCount() + " dead stores, reused "
+                            + eliminator.getReusedCount() + " subexpressions through " + eliminator.getTempCount()
+                            + " temporaries");
+                }
+            }
+
+            // INTERPRETATION
+            if (engine.equals("tree") || profile) {
+                phase = Instrumentation.begin("execute");
+                // Create Interpreter object with AST and SemanticAnalyzer
+                Interpreter interpreter = new Interpreter(tree, analyzer);
+                Profiler profiler = profile ? new Profiler() : null;
+                interpreter.setProfiler(profiler);
+                // Interpret program by traversing AST and performing operations it represents, then print variables
+                interpreter.interpret();
+                Instrumentation.end(phase);
+                if (profiler != null) {
+                    profiler.printReport(System.err, 20);
+                    if (profileFile != null) {
+                        profiler.writeCollapsed(Paths.get(profileFile));
+                    }
+                }
+            } else if (engine.equals("vm")) {
+                // Compile AST to bytecode once and run it on the stack VM, which prints its own output
+                phase = Instrumentation.begin("compile");
+                VirtualMachine vm = new VirtualMachine(BytecodeCompiler.compile(tree));
+                Instrumentation.end(phase);
+                phase = Instrumentation.begin("execute");
+                vm.interpret();
+                Instrumentation.end(phase);
+            } else if (engine.equals("jit")) {
+                // Compile AST to a hidden JVM class so HotSpot compiles the program itself
+                phase = Instrumentation.begin("compile");
+                JitProgram program;
+                try {
+                    program = JitCompiler.compile(tree, analyzer);
+                } catch (UnsupportedOperationException e) {
+                    // A single statement or the class as a whole exceeds JVM limits, run it on the VM instead
+                    VirtualMachine vm = new VirtualMachine(BytecodeCompiler.compile(tree));
+                    Instrumentation.end(phase);
+                    phase = Instrumentation.begin("execute");
+                    vm.interpret();
+                    Instrumentation.end(phase);
+                    return;
+                }
+                Instrumentation.end(phase);
+                phase = Instrumentation.begin("execute");
+                program.interpret();
+                Instrumentation.end(phase);
+            } else if (engine.equals("nodes")) {
+                // Build a tree of executable nodes that specialize into fused shapes as they first run
+                phase = Instrumentation.begin("compile");
+                NodeProgram program = new NodeProgram(tree, analyzer);
+                Instrumentation.end(phase);
+                phase = Instrumentation.begin("execute");
+                program.interpret();
+                Instrumentation.end(phase);
+                if (stats) {
+                    System.err.println("Specialized " + program.getRewriteCount() + " nodes into fused shapes");
+                }
+            } else if (engine.equals("parallel")) {
+                // Run statements that don't depend on each other concurrently, level by level
+                phase = Instrumentation.begin("execute");
+                ParallelInterpreter interpreter = new ParallelInterpreter(tree, analyzer);
+                interpreter.interpret();
+                Instrumentation.end(phase);
+                if (stats) {
+                    System.err.println("Parallel: " + interpreter.getLevelCount() + " levels, "
+                            + (interpreter.isParallel() ? "ran on pool" : "ran sequentially"));
+                }
+            } else {
+                throw new Exception("Unknown engine: " + engine);
+            }
+
+            // Close scanner
+            scanner.close();
+
+        } catch (LexerException e) {
+            // Print Lexer error message to console
+            System.err.println(e.getMessage());
+        } catch (ParserException e) {
+            // Print Parser error message to console
+            System.err.println(e.getMessage());
+        } catch (SemanticAnalyzerException e) {
+            // Print Semantic Analyzer error message to console
+            System.err.println(e.getMessage());
+        } catch (InterpreterException e) {
+            // Print Interpreter error message to console
+            System.err.println(e.getMessage());
+        } catch (Exception e) {
+            // Print general error message to console
+            System.err.println(e.getMessage());
+        } finally {
+            // Summary covers whatever ran, also when the program failed part way
+            if (instrument) {
+                System.err.println(Instrumentation.summary());
+            }
+        }
+    }
+
+    // Reads input columns from CSV, evaluates program over every row and writes assigned variables as CSV
+    private static void runColumns(String text, String columnsFile) throws IOException {
+        List<String> inputs = new ArrayList<>();
+        List<int[]> columns = new ArrayList<>();
+        int rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(columnsFile), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header != null) {
+                for (String name : header.split(",")) {
+                    inputs.add(name.trim());
+                    columns.add(new int[1024]);
+                }
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != inputs.size()) {
+                    throw new IllegalArgumentException("Error: Row " + (rows + 1) + " has " + fields.length
+                            + " fields, expected " + inputs.size());
+                }
+                for (int i = 0; i < fields.length; i++) {
+                    int[] column = columns.get(i);
+                    if (rows == column.length) {
+                        column = Arrays.copyOf(column, rows * 2);
+                        columns.set(i, column);
+                    }
+                    column[rows] = Integer.parseInt(fields[i].trim());
+                }
+                rows++;
+            }
+        }
+
+        Map<String, int[]> bound = new HashMap<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            bound.put(inputs.get(i), Arrays.copyOf(columns.get(i), rows));
+        }
+        Map<String, int[]> outputs = new ColumnarEvaluator(text, inputs).evaluate(bound);
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        out.println(String.join(",", outputs.keySet()));
+        List<int[]> outputColumns = new ArrayList<>(outputs.values());
+        int outputRows = outputColumns.isEmpty() ? 0 : outputColumns.get(0).length;
+        for (int row = 0; row < outputRows; row++) {
+            for (int i = 0; i < outputColumns.size(); i++) {
+                if (i > 0) {
+                    out.print(',');
+                }
+                out.print(outputColumns.get(i)[row]);
+            }
+            out.println();
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,422 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Executable node. Each kind of node computes its own value from the frame, so evaluation needs no
+// dispatcher and no operator check. Nodes that can be specialized start out behind a SpecializeNode, which
+// on first execution puts the best shape for its node in its place
+abstract class ExecNode {
+    ExecNode parent;  // Node holding this one, null for the root
+
+    abstract int execute(int[] frame);
+
+    // Puts node in place of this one in its parent, and returns it
+    final ExecNode replace(ExecNode node) {
+        node.parent = parent;
+        parent.replaceChild(this, node);
+        return node;
+    }
+
+    // Replaces child old with node. Only nodes with children override it
+    void replaceChild(ExecNode old, ExecNode node) {
+        throw new IllegalStateException("Node has no children");
+    }
+
+    // Makes this node the parent of child, and returns it
+    final ExecNode adopt(ExecNode child) {
+        child.parent = this;
+        return child;
+    }
+
+    // Returns node of the best shape for this one, this node itself when there is nothing better
+    ExecNode specialize() {
+        return this;
+    }
+}
+
+// Integer literal, parsed once when the tree is built
+final class ConstNode extends ExecNode {
+    final int value;
+
+    ConstNode(int value) {
+        this.value = value;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return value;
+    }
+}
+
+// Read of a variable's frame slot
+final class LocalReadNode extends ExecNode {
+    final int slot;
+
+    LocalReadNode(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return frame[slot];
+    }
+}
+
+// Assignment of a value to a variable's frame slot
+final class LocalWriteNode extends ExecNode {
+    final int slot;
+    ExecNode value;
+
+    LocalWriteNode(int slot, ExecNode value) {
+        this.slot = slot;
+        this.value = adopt(value);
+    }
+
+    @Override
+    int execute(int[] frame) {
+        int result = value.execute(frame);
+        frame[slot] = result;
+        return result;
+    }
+
+    @Override
+    void replaceChild(ExecNode old, ExecNode node) {
+        value = node;
+    }
+}
+
+// Operator node with two operands
+abstract class BinaryNode extends ExecNode {
+    ExecNode left;
+    ExecNode right;
+
+    BinaryNode(ExecNode left, ExecNode right) {
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    @Override
+    void replaceChild(ExecNode old, ExecNode node) {
+        if (left == old) {
+            left = node;
+        } else {
+            right = node;
+        }
+    }
+
+    // Slot read by operand, or -1 when it isn't a plain variable read
+    static int slotOf(ExecNode node) {
+        return node instanceof LocalReadNode ? ((LocalReadNode) node).slot : -1;
+    }
+}
+
+final class AddNode extends BinaryNode {
+    AddNode(ExecNode left, ExecNode right) {
+        super(left, right);
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return left.execute(frame) + right.execute(frame);
+    }
+
+    // Variable plus constant, in either order, and variable plus variable have fused shapes
+    @Override
+    ExecNode specialize() {
+        if (left instanceof ConstNode && right instanceof ConstNode) {
+            return new ConstNode(((ConstNode) left).value + ((ConstNode) right).value);
+        } else if (slotOf(left) >= 0 && right instanceof ConstNode) {
+            return new LocalAddConstNode(slotOf(left), ((ConstNode) right).value);
+        } else if (left instanceof ConstNode && slotOf(right) >= 0) {
+            return new LocalAddConstNode(slotOf(right), ((ConstNode) left).value);
+        } else if (slotOf(left) >= 0 && slotOf(right) >= 0) {
+            return new LocalAddLocalNode(slotOf(left), slotOf(right));
+        }
+        return this;
+    }
+}
+
+final class SubNode extends BinaryNode {
+    SubNode(ExecNode left, ExecNode right) {
+        super(left, right);
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return left.execute(frame) - right.execute(frame);
+    }
+
+    // Variable minus constant is variable plus negated constant, which wraps around the same way
+    @Override
+    ExecNode specialize() {
+        if (left instanceof ConstNode && right instanceof ConstNode) {
+            return new ConstNode(((ConstNode) left).value - ((ConstNode) right).value);
+        } else if (slotOf(left) >= 0 && right instanceof ConstNode) {
+            return new LocalAddConstNode(slotOf(left), -((ConstNode) right).value);
+        } else if (slotOf(left) >= 0 && slotOf(right) >= 0) {
+            return new LocalSubLocalNode(slotOf(left), slotOf(right));
+        }
+        return this;
+    }
+}
+
+final class MulNode extends BinaryNode {
+    MulNode(ExecNode left, ExecNode right) {
+        super(left, right);
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return left.execute(frame) * right.execute(frame);
+    }
+
+    @Override
+    ExecNode specialize() {
+        if (left instanceof ConstNode && right instanceof ConstNode) {
+            return new ConstNode(((ConstNode) left).value * ((ConstNode) right).value);
+        } else if (slotOf(left) >= 0 && right instanceof ConstNode) {
+            return new LocalMulConstNode(slotOf(left), ((ConstNode) right).value);
+        } else if (left instanceof ConstNode && slotOf(right) >= 0) {
+            return new LocalMulConstNode(slotOf(right), ((ConstNode) left).value);
+        } else if (slotOf(left) >= 0 && slotOf(right) >= 0) {
+            return new LocalMulLocalNode(slotOf(left), slotOf(right));
+        }
+        return this;
+    }
+}
+
+final class NegNode extends ExecNode {
+    ExecNode operand;
+
+    NegNode(ExecNode operand) {
+        this.operand = adopt(operand);
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return -operand.execute(frame);
+    }
+
+    @Override
+    void replaceChild(ExecNode old, ExecNode node) {
+        operand = node;
+    }
+
+    @Override
+    ExecNode specialize() {
+        if (operand instanceof ConstNode) {
+            return new ConstNode(-((ConstNode) operand).value);
+        } else if (operand instanceof LocalReadNode) {
+            return new LocalNegNode(((LocalReadNode) operand).slot);
+        }
+        return this;
+    }
+}
+
+// Fused shapes. Each reads its operands straight from the frame, without executing child nodes
+
+final class LocalAddConstNode extends ExecNode {
+    final int slot;
+    final int constant;
+
+    LocalAddConstNode(int slot, int constant) {
+        this.slot = slot;
+        this.constant = constant;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return frame[slot] + constant;
+    }
+}
+
+final class LocalMulConstNode extends ExecNode {
+    final int slot;
+    final int constant;
+
+    LocalMulConstNode(int slot, int constant) {
+        this.slot = slot;
+        this.constant = constant;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return frame[slot] * constant;
+    }
+}
+
+final class LocalAddLocalNode extends ExecNode {
+    final int left;
+    final int right;
+
+    LocalAddLocalNode(int left, int right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return frame[left] + frame[right];
+    }
+}
+
+final class LocalSubLocalNode extends ExecNode {
+    final int left;
+    final int right;
+
+    LocalSubLocalNode(int left, int right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return frame[left] - frame[right];
+    }
+}
+
+final class LocalMulLocalNode extends ExecNode {
+    final int left;
+    final int right;
+
+    LocalMulLocalNode(int left, int right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return frame[left] * frame[right];
+    }
+}
+
+final class LocalNegNode extends ExecNode {
+    final int slot;
+
+    LocalNegNode(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        return -frame[slot];
+    }
+}
+
+// Stands in for a node until it first runs, then replaces itself with the node's best shape and runs that.
+// Operands are specialized first, since they run first, so a fused shape can form from operands that were
+// only fused themselves
+final class SpecializeNode extends ExecNode {
+    private final ExecNode node;
+    private final NodeProgram program;
+
+    SpecializeNode(ExecNode node, NodeProgram program) {
+        this.node = adopt(node);
+        this.program = program;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        int result = node.execute(frame);
+        ExecNode specialized = node.specialize();
+        if (specialized != node) {
+            program.rewrites++;
+        }
+        replace(specialized);
+        return result;
+    }
+}
+
+// Program as a tree of executable nodes, one LocalWriteNode per top-level assignment. Runs any number of
+// times, each run on a fresh frame. Operator nodes specialize during the first run, later runs execute the
+// specialized tree
+public final class NodeProgram extends ExecNode {
+    private final LocalWriteNode[] statements;
+    private final String[] slotNames;  // Variable name of each slot
+    int rewrites = 0;  // Nodes replaced by a fused shape
+
+    // Builds node tree from AST. Slots are the ones analyzer assigned when it visited tree
+    public NodeProgram(AST tree, SemanticAnalyzer analyzer) {
+        slotNames = new String[analyzer.getSlotCount()];
+        for (int slot = 0; slot < slotNames.length; slot++) {
+            slotNames[slot] = analyzer.getSlotName(slot);
+        }
+        List<LocalWriteNode> writes = new ArrayList<>();
+        if (tree instanceof Compound) {
+            for (AST child : ((Compound) tree).children) {
+                if (child instanceof Assign) {
+                    writes.add(build((Assign) child));
+                }
+            }
+        } else if (tree instanceof Assign) {
+            writes.add(build((Assign) tree));
+        }
+        statements = writes.toArray(new LocalWriteNode[0]);
+    }
+
+    // Runs the program and returns final variable values, indexed by slot
+    public int[] run() {
+        int[] frame = new int[slotNames.length];
+        execute(frame);
+        return frame;
+    }
+
+    // Runs the program and prints out values of all variables
+    public void interpret() {
+        int[] frame = run();
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < frame.length; slot++) {
+            symbolTable.define(slotNames[slot], frame[slot]);
+        }
+        VariableWriter.write(symbolTable, System.out);
+    }
+
+    // Returns number of nodes replaced by a fused shape so far
+    public int getRewriteCount() {
+        return rewrites;
+    }
+
+    @Override
+    int execute(int[] frame) {
+        for (LocalWriteNode statement : statements) {
+            statement.execute(frame);
+        }
+        return 0;
+    }
+
+    private LocalWriteNode build(Assign node) {
+        LocalWriteNode write = new LocalWriteNode(node.left.slot, build(node.right));
+        write.parent = this;
+        return write;
+    }
+
+    // Builds node for expression. Operator nodes are wrapped to specialize on first run, leaves never change
+    private ExecNode build(AST node) {
+        if (node instanceof Num) {
+            return new ConstNode(((Num) node).value);
+        } else if (node instanceof Var) {
+            return new LocalReadNode(((Var) node).slot);
+        } else if (node instanceof BinOp) {
+            BinOp binOp = (BinOp) node;
+            ExecNode left = build(binOp.left);
+            ExecNode right = build(binOp.right);
+            if (binOp.op.type == TokenType.PLUS) {
+                return new SpecializeNode(new AddNode(left, right), this);
+            } else if (binOp.op.type == TokenType.MINUS) {
+                return new SpecializeNode(new SubNode(left, right), this);
+            } else if (binOp.op.type == TokenType.MUL) {
+                return new SpecializeNode(new MulNode(left, right), this);
+            }
+            throw new RuntimeException("Invalid operator");
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            ExecNode operand = build(unaryOp.expr);
+            if (unaryOp.op.type == TokenType.MINUS) {
+                return new SpecializeNode(new NegNode(operand), this);
+            }
+            return operand;  // Unary plus changes nothing
+        }
+        throw new RuntimeException("Invalid node type");
+    }
+}
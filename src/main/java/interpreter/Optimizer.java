@@ -0,0 +1,165 @@
+package interpreter;
+
+import java.util.*;
+
+// Optimizer simplifies AST once after parsing: folds constant subtrees and strips identity operations
+public class Optimizer {
+    // Variables assigned by statements already visited. Reads of these can't fail, so dropping them is safe
+    private Set<String> assigned = new HashSet<>();
+
+    // Number of AST nodes removed by the last call to optimize
+    private int removedNodeCount = 0;
+
+    // Entry point for Optimizer. Returns simplified tree, which may share nodes with the input
+    public AST optimize(AST tree) {
+        assigned.clear();
+        int before = countNodes(tree);
+        AST result = visit(tree);
+        removedNodeCount = before - countNodes(result);
+        return result;
+    }
+
+    // Returns number of AST nodes removed by the last call to optimize
+    public int getRemovedNodeCount() {
+        return removedNodeCount;
+    }
+
+    // Dispatches node to appropriate method
+    private AST visit(AST node) {
+        if (node instanceof BinOp) {
+            return visitBinOp((BinOp) node);
+        } else if (node instanceof UnaryOp) {
+            return visitUnaryOp((UnaryOp) node);
+        } else if (node instanceof Compound) {
+            return visitCompound((Compound) node);
+        } else if (node instanceof Assign) {
+            return visitAssign((Assign) node);
+        }
+        return node;  // Num, Var and NoOp are already as simple as they get
+    }
+
+    // Simplifies every statement in order, so later statements know which variables are assigned
+    private AST visitCompound(Compound node) {
+        for (int i = 0; i < node.children.size(); i++) {
+            node.children.set(i, visit(node.children.get(i)));
+        }
+        return node;
+    }
+
+    // Simplifies right side, then marks target as assigned for the statements that follow
+    private AST visitAssign(Assign node) {
+        node.right = visit(node.right);
+        assigned.add(node.left.token.value);
+        return node;
+    }
+
+    // Drops unary plus and simplifies unary minus
+    private AST visitUnaryOp(UnaryOp node) {
+        AST expr = visit(node.expr);
+        if (node.op.type == TokenType.PLUS) {
+            return expr;
+        }
+        node.expr = expr;
+        return node.op.type == TokenType.MINUS ? negate(node) : node;
+    }
+
+    // Folds -c and --x. Operand of node must already be simplified
+    private AST negate(UnaryOp node) {
+        if (node.expr instanceof Num) {
+            return number(-((Num) node.expr).value);
+        }
+        if (node.expr instanceof UnaryOp && ((UnaryOp) node.expr).op.type == TokenType.MINUS) {
+            return ((UnaryOp) node.expr).expr;
+        }
+        return node;
+    }
+
+    // Folds constant operands, strips +0, -0 and *1, and replaces *0 by 0 when the other side can't fail
+    private AST visitBinOp(BinOp node) {
+        AST left = visit(node.left);
+        AST right = visit(node.right);
+        TokenType type = node.op.type;
+
+        if (left instanceof Num && right instanceof Num) {
+            int a = ((Num) left).value;
+            int b = ((Num) right).value;
+            if (type == TokenType.PLUS) {
+                return number(a + b);
+            } else if (type == TokenType.MINUS) {
+                return number(a - b);
+            } else if (type == TokenType.MUL) {
+                return number(a * b);
+            }
+        }
+
+        if (type == TokenType.PLUS) {
+            if (isConstant(right, 0)) {
+                return left;
+            }
+            if (isConstant(left, 0)) {
+                return right;
+            }
+        } else if (type == TokenType.MINUS) {
+            if (isConstant(right, 0)) {
+                return left;
+            }
+            if (isConstant(left, 0)) {
+                return negate(new UnaryOp(new Token(TokenType.MINUS, "-"), right));
+            }
+        } else if (type == TokenType.MUL) {
+            if (isConstant(right, 1)) {
+                return left;
+            }
+            if (isConstant(left, 1)) {
+                return right;
+            }
+            if ((isConstant(right, 0) && canDrop(left)) || (isConstant(left, 0) && canDrop(right))) {
+                return number(0);
+            }
+        }
+
+        node.left = left;
+        node.right = right;
+        return node;
+    }
+
+    // Checks if node is a literal with given value
+    private boolean isConstant(AST node, int value) {
+        return node instanceof Num && ((Num) node).value == value;
+    }
+
+    // Checks if evaluating node can be skipped without hiding a "Variable not found" error
+    private boolean canDrop(AST node) {
+        if (node instanceof Var) {
+            return assigned.contains(((Var) node).token.value);
+        } else if (node instanceof BinOp) {
+            return canDrop(((BinOp) node).left) && canDrop(((BinOp) node).right);
+        } else if (node instanceof UnaryOp) {
+            return canDrop(((UnaryOp) node).expr);
+        }
+        return node instanceof Num;
+    }
+
+    // Creates literal node holding given value
+    private Num number(int value) {
+        return new Num(new Token(TokenType.INTEGER, Integer.toString(value)));
+    }
+
+    // Counts nodes in a tree
+    private int countNodes(AST node) {
+        if (node instanceof BinOp) {
+            return 1 + countNodes(((BinOp) node).left) + countNodes(((BinOp) node).right);
+        } else if (node instanceof UnaryOp) {
+            return 1 + countNodes(((UnaryOp) node).expr);
+        } else if (node instanceof Assign) {
+            return 1 + countNodes(((Assign) node).left) + countNodes(((Assign) node).right);
+        } else if (node instanceof Compound) {
+            int count = 1;
+            for (AST child : ((Compound) node).children) {
+                count += countNodes(child);
+            }
+            return count;
+        }
+        return 1;
+    }
+}
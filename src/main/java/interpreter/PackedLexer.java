@@ -0,0 +1,353 @@
+package interpreter;
+
+import java.util.Arrays;
+
+// Interns identifier names so equal names share one dense id. Lookups compare characters in place,
+// a String is only created the first time a name is seen
+class SymbolPool {
+    private String[] names = new String[16];  // Name of each id
+    private int[] table = new int[32];  // Open-addressing hash table of id + 1, 0 marks an empty cell
+    private int size = 0;
+
+    // Returns id of name held in source[start, end), adding it if it is new
+    public int intern(String source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int mask = table.length - 1;
+        int cell = mix(hash) & mask;
+        while (table[cell] != 0) {
+            String name = names[table[cell] - 1];
+            if (matches(name, source, start, end)) {
+                return table[cell] - 1;
+            }
+            cell = (cell + 1) & mask;
+        }
+
+        int id = size++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+        }
+        names[id] = source.substring(start, end);
+        table[cell] = id + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    // Returns name of given id
+    public String name(int id) {
+        return names[id];
+    }
+
+    // Returns number of distinct names
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(String name, String source, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Spreads String.hashCode bits so sequential names don't cluster
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Doubles the table and reinserts every id
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int cell = mix(names[id].hashCode()) & mask;
+            while (table[cell] != 0) {
+                cell = (cell + 1) & mask;
+            }
+            table[cell] = id + 1;
+        }
+    }
+}
+
+// Tokens of a whole input packed into parallel primitive arrays. Token i has type types[i], covers
+// source[starts[i], ends[i]) and has values[i] = parsed integer for INTEGER, symbol id for IDENTIFIER
+class TokenStream {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    // One shared Token per operator, punctuation and EOF type
+    private static final Token[] FIXED_TOKENS = new Token[TYPES.length];
+
+    static {
+        FIXED_TOKENS[TokenType.PLUS.ordinal()] = new Token(TokenType.PLUS, "+");
+        FIXED_TOKENS[TokenType.MINUS.ordinal()] = new Token(TokenType.MINUS, "-");
+        FIXED_TOKENS[TokenType.MUL.ordinal()] = new Token(TokenType.MUL, "*");
+        FIXED_TOKENS[TokenType.LPAREN.ordinal()] = new Token(TokenType.LPAREN, "(");
+        FIXED_TOKENS[TokenType.RPAREN.ordinal()] = new Token(TokenType.RPAREN, ")");
+        FIXED_TOKENS[TokenType.ASSIGN.ordinal()] = new Token(TokenType.ASSIGN, "=");
+        FIXED_TOKENS[TokenType.SEMICOLON.ordinal()] = new Token(TokenType.SEMICOLON, ";");
+        FIXED_TOKENS[TokenType.EOF.ordinal()] = new Token(TokenType.EOF, "");
+    }
+
+    public final CharSequence source;
+    public final SymbolPool symbols;
+    public byte[] types;
+    public int[] starts;
+    public int[] ends;
+    public int[] values;
+    public int count = 0;  // Number of tokens, last one is EOF
+
+    // Tokens handed to Parser, one per symbol id and per distinct literal, created on first use
+    private Token[] symbolTokens = new Token[0];
+    private int[] literalKeys = new int[16];
+    private Token[] literalTokens = new Token[16];
+    private int literalCount = 0;
+
+    public TokenStream(CharSequence source, SymbolPool symbols, int capacity) {
+        this.source = source;
+        this.symbols = symbols;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.values = new int[capacity];
+    }
+
+    // Appends token, growing arrays as needed
+    public void add(TokenType type, int start, int end, int value) {
+        if (count == types.length) {
+            int capacity = Math.max(16, count * 2);
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        types[count] = (byte) type.ordinal();
+        starts[count] = start;
+        ends[count] = end;
+        values[count] = value;
+        count++;
+    }
+
+    // Returns type of token i. Past the end the stream keeps answering EOF
+    public TokenType type(int i) {
+        return TYPES[types[Math.min(i, count - 1)]];
+    }
+
+    // Returns Token for token i, shared with every other token of the same type and text
+    public Token token(int i) {
+        i = Math.min(i, count - 1);
+        TokenType type = TYPES[types[i]];
+        if (type == TokenType.IDENTIFIER) {
+            return symbolToken(values[i]);
+        } else if (type == TokenType.INTEGER) {
+            return literalToken(i);
+        }
+        return FIXED_TOKENS[type.ordinal()];
+    }
+
+    private Token symbolToken(int id) {
+        if (id >= symbolTokens.length) {
+            symbolTokens = Arrays.copyOf(symbolTokens, Math.max(symbols.size(), id + 1));
+        }
+        Token token = symbolTokens[id];
+        if (token == null) {
+            token = new Token(TokenType.IDENTIFIER, symbols.name(id));
+            symbolTokens[id] = token;
+        }
+        return token;
+    }
+
+    // Literal tokens are looked up by value in an open-addressing table
+    private Token literalToken(int i) {
+        int value = values[i];
+        int mask = literalKeys.length - 1;
+        int cell = literalCell(value, mask);
+        while (literalTokens[cell] != null) {
+            if (literalKeys[cell] == value) {
+                return literalTokens[cell];
+            }
+            cell = (cell + 1) & mask;
+        }
+
+        Token token = new Token(TokenType.INTEGER, Integer.toString(value));
+        literalKeys[cell] = value;
+        literalTokens[cell] = token;
+        if (++literalCount * 2 > literalKeys.length) {
+            int[] oldKeys = literalKeys;
+            Token[] oldTokens = literalTokens;
+            literalKeys = new int[oldKeys.length * 2];
+            literalTokens = new Token[oldKeys.length * 2];
+            mask = literalKeys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldTokens[j] != null) {
+                    cell = literalCell(oldKeys[j], mask);
+                    while (literalTokens[cell] != null) {
+                        cell = (cell + 1) & mask;
+                    }
+                    literalKeys[cell] = oldKeys[j];
+                    literalTokens[cell] = oldTokens[j];
+                }
+            }
+        }
+        return token;
+    }
+
+    private static int literalCell(int value, int mask) {
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
+
+// PackedLexer tokenizes a whole input into a TokenStream in one pass. It accepts exactly what Lexer accepts,
+// but classifies ASCII through a lookup table and allocates nothing per token
+public class PackedLexer {
+    // Character classes of the lookup table
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte LETTER = 3;
+    private static final byte SYMBOL = 4;
+
+    // Class of every ASCII character, and token type of single-character tokens
+    private static final byte[] CHAR_CLASS = new byte[128];
+    private static final TokenType[] SYMBOL_TYPE = new TokenType[128];
+
+    // Built with the same Character methods Lexer uses, so both lexers agree on every ASCII character
+    static {
+        for (char c = 0; c < 128; c++) {
+            if (Character.isWhitespace(c)) {
+                CHAR_CLASS[c] = SPACE;
+            } else if (Character.isDigit(c)) {
+                CHAR_CLASS[c] = DIGIT;
+            } else if (Character.isLetter(c)) {
+                CHAR_CLASS[c] = LETTER;
+            }
+        }
+        SYMBOL_TYPE['+'] = TokenType.PLUS;
+        SYMBOL_TYPE['-'] = TokenType.MINUS;
+        SYMBOL_TYPE['*'] = TokenType.MUL;
+        SYMBOL_TYPE['('] = TokenType.LPAREN;
+        SYMBOL_TYPE[')'] = TokenType.RPAREN;
+        SYMBOL_TYPE['='] = TokenType.ASSIGN;
+        SYMBOL_TYPE[';'] = TokenType.SEMICOLON;
+        for (char c = 0; c < 128; c++) {
+            if (SYMBOL_TYPE[c] != null) {
+                CHAR_CLASS[c] = SYMBOL;
+            }
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final String input;  // Input string to tokenize
+    private final int length;
+    private final SymbolPool symbols;  // Pool identifiers are interned into
+    private final TokenStream tokens;  // Tokens produced so far
+    private int pos = 0;  // Index of current character
+
+    private PackedLexer(String input, SymbolPool symbols) {
+        this.input = input;
+        this.length = input.length();
+        this.symbols = symbols;
+        // Token density varies too much to size arrays from the input length, so they start small and double
+        this.tokens = new TokenStream(input, symbols, Math.min(length / 2, INITIAL_CAPACITY) + 16);
+    }
+
+    // Tokenizes whole input, interning identifiers into a new SymbolPool
+    public static TokenStream tokenize(String input) {
+        return tokenize(input, new SymbolPool());
+    }
+
+    // Tokenizes whole input, interning identifiers into given pool
+    public static TokenStream tokenize(String input, SymbolPool symbols) {
+        long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+        PackedLexer lexer = new PackedLexer(input, symbols);
+        while (lexer.pos < lexer.length && lexer.nextToken()) {
+            // Each call appends at most one token
+        }
+        lexer.tokens.add(TokenType.EOF, lexer.pos, lexer.pos, 0);
+        if (Instrumentation.ENABLED) {
+            Instrumentation.tokensLexed(lexer.tokens.count, System.nanoTime() - start);
+        }
+        return lexer.tokens;
+    }
+
+    // Skips one whitespace character or appends one token. Returns false at a null character, which Lexer
+    // treats as end of input. Kept small so the JIT compiles it like Lexer.getNextToken
+    private boolean nextToken() {
+        char c = input.charAt(pos);
+        byte charClass = c < 128 ? CHAR_CLASS[c] : classify(c);
+        if (charClass == SPACE) {
+            pos++;
+        } else if (charClass == SYMBOL) {
+            tokens.add(SYMBOL_TYPE[c], pos, ++pos, 0);
+        } else if (charClass == DIGIT) {
+            integer();
+        } else if (charClass == LETTER) {
+            id();
+        } else if (c == '\0') {
+            return false;
+        } else {
+            throw new LexerException("Error: Invalid character: " + c, ErrorHandler.lineOf(input, pos),
+                    ErrorHandler.columnOf(input, pos));
+        }
+        return true;
+    }
+
+    // Reads integer and stores its value. Accumulates in a long, saturating past int range, so a literal out of
+    // range fails here, at its position, for exactly the literals WideNum.fitsInt rejects
+    private void integer() {
+        int start = pos;
+        long value = 0;
+        char c;
+        while (pos < length && isDigit(c = input.charAt(pos))) {
+            value = value * 10 + (c < 128 ? c - '0' : Character.digit(c, 10));
+            if (value > Integer.MAX_VALUE) {
+                value = Integer.MAX_VALUE + 1L;
+            }
+            pos++;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new LexerException("Error: Integer literal out of range: " + input.substring(start, pos),
+                    ErrorHandler.lineOf(input, start), ErrorHandler.columnOf(input, start));
+        }
+        tokens.add(TokenType.INTEGER, start, pos, (int) value);
+    }
+
+    // Reads identifier and stores its symbol id
+    private void id() {
+        int start = pos;
+        while (pos < length && isLetterOrDigit(input.charAt(pos))) {
+            pos++;
+        }
+        tokens.add(TokenType.IDENTIFIER, start, pos, symbols.intern(input, start, pos));
+    }
+
+    // Classifies a character outside the lookup table the way Lexer does
+    private static byte classify(char c) {
+        if (Character.isWhitespace(c)) {
+            return SPACE;
+        } else if (Character.isDigit(c)) {
+            return DIGIT;
+        } else if (Character.isLetter(c)) {
+            return LETTER;
+        }
+        return OTHER;
+    }
+
+    private static boolean isDigit(char c) {
+        return c < 128 ? CHAR_CLASS[c] == DIGIT : Character.isDigit(c);
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return c < 128 ? CHAR_CLASS[c] == DIGIT || CHAR_CLASS[c] == LETTER : Character.isLetterOrDigit(c);
+    }
+}
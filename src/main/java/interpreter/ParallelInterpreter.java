@@ -0,0 +1,228 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs one level of the dependency graph by splitting its statements until each task holds a few of them.
+// Statements of a level never touch a slot another statement of the same level writes
+class LevelTask extends RecursiveAction {
+    private final ParallelInterpreter interpreter;
+    private final Assign[] statements;
+    private final int start;
+    private final int end;
+
+    LevelTask(ParallelInterpreter interpreter, Assign[] statements, int start, int end) {
+        this.interpreter = interpreter;
+        this.statements = statements;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start <= ParallelInterpreter.MIN_TASK_SIZE) {
+            for (int i = start; i < end; i++) {
+                interpreter.executeAssign(statements[i]);
+            }
+            return;
+        }
+        int middle = (start + end) >>> 1;
+        invokeAll(new LevelTask(interpreter, statements, start, middle),
+                new LevelTask(interpreter, statements, middle, end));
+    }
+}
+
+// Interprets top-level assignments in parallel. A dependency graph is built from the slots each statement
+// reads and writes: a read waits for the last write of its slot (read after write), a write waits for
+// earlier reads (write after read) and the earlier write (write after write) of its slot. Statements are
+// grouped into levels, each one after every statement it depends on, and each level runs on a ForkJoinPool.
+// Every slot ends up written by the same last statement as in program order, so output matches Interpreter
+public class ParallelInterpreter {
+    // Below this many statements the graph isn't even built
+    static final int MIN_STATEMENTS = 256;
+    // Average statements per level needed to pay for a fork/join round per level
+    static final int MIN_AVERAGE_WIDTH = 64;
+    // Statements run by one task without splitting further
+    static final int MIN_TASK_SIZE = 32;
+
+    private AST tree;  // Root of AST
+    private SemanticAnalyzer analyzer;  // Semantic analyzer
+    private ForkJoinPool pool;  // Pool levels run on
+    private int[] frame;  // Variable values, indexed by slot assigned by SemanticAnalyzer
+    private Assign[][] levels;  // Statements of each level, in program order
+    private boolean parallel;  // Whether the last run used the pool
+
+    // Constructor takes in AST and semantic analyzer, and runs on the common pool
+    public ParallelInterpreter(AST tree, SemanticAnalyzer analyzer) {
+        this(tree, analyzer, ForkJoinPool.commonPool());
+    }
+
+    // Constructor takes in AST, semantic analyzer and pool to run on
+    public ParallelInterpreter(AST tree, SemanticAnalyzer analyzer, ForkJoinPool pool) {
+        this.tree = tree;
+        this.analyzer = analyzer;
+        this.pool = pool;
+    }
+
+    // Runs semantic analyzer and then the program, in parallel when the graph is wide enough
+    public void execute() {
+        analyzer.visit(tree);
+        frame = new int[analyzer.getSlotCount()];
+
+        List<Assign> statements = new ArrayList<>();
+        collectStatements(tree, statements);
+        parallel = false;
+        levels = null;
+        if (pool.getParallelism() > 1 && statements.size() >= MIN_STATEMENTS) {
+            levels = buildLevels(statements);
+            parallel = statements.size() >= (long) levels.length * MIN_AVERAGE_WIDTH;
+        }
+        if (!parallel) {
+            // Too narrow or too small, a fork/join round per level would cost more than it saves
+            for (Assign statement : statements) {
+                executeAssign(statement);
+            }
+            return;
+        }
+        for (Assign[] level : levels) {
+            if (level.length <= MIN_TASK_SIZE) {
+                for (Assign statement : level) {
+                    executeAssign(statement);
+                }
+            } else {
+                // invoke returns only after every task finished, so the next level sees all writes of this one
+                pool.invoke(new LevelTask(this, level, 0, level.length));
+            }
+        }
+    }
+
+    // Entry point for interpretation process. Executes the program and prints out its variables
+    public void interpret() {
+        execute();
+        printVariables();
+    }
+
+    // Returns whether the last run used the pool
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    // Returns number of levels in the dependency graph of the last run, 0 when it wasn't built
+    public int getLevelCount() {
+        return levels == null ? 0 : levels.length;
+    }
+
+    // Rebuilds name/value table from slots and prints out values of all variables
+    public void printVariables() {
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < analyzer.getSlotCount(); slot++) {
+            symbolTable.define(analyzer.getSlotName(slot), frame[slot]);
+        }
+        VariableWriter.write(symbolTable, System.out);
+    }
+
+    // Evaluates assignment and stores its value in the target's frame slot
+    void executeAssign(Assign node) {
+        frame[node.left.slot] = evaluate(node.right);
+    }
+
+    // Flattens compound nodes into their assignments, in program order
+    private static void collectStatements(AST node, List<Assign> statements) {
+        if (node instanceof Compound) {
+            for (AST child : ((Compound) node).children) {
+                collectStatements(child, statements);
+            }
+        } else if (node instanceof Assign) {
+            statements.add((Assign) node);
+        }
+    }
+
+    // Gives every statement the lowest level after all statements it depends on, then groups them by level
+    private Assign[][] buildLevels(List<Assign> statements) {
+        int slotCount = analyzer.getSlotCount();
+        int[] lastWriteLevel = new int[slotCount];  // Level of the last statement writing each slot
+        int[] lastReadLevel = new int[slotCount];  // Highest level reading each slot since that write
+        Arrays.fill(lastWriteLevel, -1);
+        Arrays.fill(lastReadLevel, -1);
+        int[] statementLevels = new int[statements.size()];
+        int levelCount = 0;
+        List<Integer> reads = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            Assign statement = statements.get(i);
+            reads.clear();
+            collectReads(statement.right, reads);
+            int target = statement.left.slot;
+            // Write after write and write after read
+            int level = Math.max(lastWriteLevel[target], lastReadLevel[target]);
+            for (int slot : reads) {
+                level = Math.max(level, lastWriteLevel[slot]);  // Read after write
+            }
+            level++;
+            for (int slot : reads) {
+                lastReadLevel[slot] = Math.max(lastReadLevel[slot], level);
+            }
+            // Later writes are ordered after this one, which is already after every earlier read
+            lastWriteLevel[target] = level;
+            lastReadLevel[target] = -1;
+            statementLevels[i] = level;
+            levelCount = Math.max(levelCount, level + 1);
+        }
+
+        // Counting sort by level keeps program order within each level
+        int[] sizes = new int[levelCount];
+        for (int level : statementLevels) {
+            sizes[level]++;
+        }
+        Assign[][] grouped = new Assign[levelCount][];
+        for (int level = 0; level < levelCount; level++) {
+            grouped[level] = new Assign[sizes[level]];
+            sizes[level] = 0;
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            int level = statementLevels[i];
+            grouped[level][sizes[level]++] = statements.get(i);
+        }
+        return grouped;
+    }
+
+    // Collects slots read by expression
+    private static void collectReads(AST node, List<Integer> reads) {
+        if (node instanceof Var) {
+            reads.add(((Var) node).slot);
+        } else if (node instanceof BinOp) {
+            collectReads(((BinOp) node).left, reads);
+            collectReads(((BinOp) node).right, reads);
+        } else if (node instanceof UnaryOp) {
+            collectReads(((UnaryOp) node).expr, reads);
+        }
+    }
+
+    // Evaluates expression against the frame. Only reads slots whose writers ran in an earlier level
+    private int evaluate(AST node) {
+        if (node instanceof Num) {
+            return ((Num) node).value;
+        } else if (node instanceof Var) {
+            return frame[((Var) node).slot];
+        } else if (node instanceof BinOp) {
+            BinOp binOp = (BinOp) node;
+            int left = evaluate(binOp.left);
+            int right = evaluate(binOp.right);
+            if (binOp.op.type == TokenType.PLUS) {
+                return left + right;
+            } else if (binOp.op.type == TokenType.MINUS) {
+                return left - right;
+            } else if (binOp.op.type == TokenType.MUL) {
+                return left * right;
+            }
+            throw new RuntimeException("Invalid operator");
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            int value = evaluate(unaryOp.expr);
+            return unaryOp.op.type == TokenType.MINUS ? -value : value;
+        }
+        throw new RuntimeException("Invalid node type");
+    }
+}
@@ -0,0 +1,631 @@
+package interpreter;
+
+import java.math.BigInteger;
+import java.util.*;
+
+// Parser class implements a recursive descent parser that builds an abstract syntax tree (AST) from the input
+public class Parser {
+    private Token currentToken;
+    private Lexer lexer;
+    // Packed tokens to read instead of lexer, and index of next one
+    private TokenStream tokens;
+    private int tokenIndex = 0;
+    // Turns literals beyond int range into WideNum nodes instead of failing, for WideInterpreter
+    private boolean wideLiterals = false;
+    // Parses expressions with an explicit operator stack instead of recursive descent
+    private boolean iterative = false;
+    // Packed source is scanned for line breaks up to countedOffset, which lies on countedLine starting at
+    // countedLineStart. Tokens are located in order, so the source is scanned once
+    private int countedOffset = 0;
+    private int countedLine = 1;
+    private int countedLineStart = 0;
+    // Errors recorded while recovering, lexer errors are added here instead of being thrown when set
+    private List<SourceException> recoveredErrors;
+
+
+    // Constructor receives a Lexer to get tokens from
+    public Parser(Lexer lexer) {
+        this.lexer = lexer;
+        // Initializes currentToken to first token received from lexer
+        this.currentToken = lexer.getNextToken();
+    }
+
+    // Constructor receives tokens lexed in advance by PackedLexer. Tokens are shared per type and text,
+    // so parsing creates no Token objects
+    public Parser(TokenStream tokens) {
+        this.tokens = tokens;
+        this.currentToken = nextToken();
+    }
+
+    // Accepts literals of any size. Only WideInterpreter can run the resulting tree
+    public void setWideLiterals(boolean wideLiterals) {
+        this.wideLiterals = wideLiterals;
+    }
+
+    // Parses expressions without recursion, so nesting depth is only limited by the heap. Builds the same tree
+    public void setIterative(boolean iterative) {
+        this.iterative = iterative;
+    }
+
+    // Returns next token from packed stream or lexer. While recovering, an invalid character is recorded and
+    // lexing goes on after it
+    private Token nextToken() {
+        if (tokens != null) {
+            return tokens.token(tokenIndex++);
+        }
+        if (recoveredErrors == null) {
+            return lexer.getNextToken();
+        }
+        while (true) {
+            try {
+                return lexer.getNextToken();
+            } catch (LexerException e) {
+                recoveredErrors.add(e);
+            }
+        }
+    }
+
+    // The 'eat' method is used to consume token of given type
+    // If current token type matches passed token type, get next token, otherwise throw error
+    private void eat(TokenType tokenType) {
+        if (this.currentToken.type == tokenType) {
+            this.currentToken = nextToken();
+        } else {
+            throw error("Invalid token: expected " + tokenType);
+        }
+    }
+
+    // Builds error positioned at the current token, naming the token found there
+    private ParserException error(String errorMessage) {
+        String found = currentToken.type == TokenType.EOF ? "end of input" : "'" + currentToken.value + "'";
+        return new ParserException("Error: " + errorMessage + ", found " + found, currentLine(), currentColumn());
+    }
+
+    // Builds error for the current literal, which doesn't fit in an int. Typed and worded like the one
+    // PackedLexer throws while lexing, so both lexers report the same literal the same way
+    private LexerException outOfRange() {
+        return new LexerException("Error: Integer literal out of range: " + currentToken.value, currentLine(),
+                currentColumn());
+    }
+
+    // Returns line of the current token. Packed tokens only keep offsets, so it is counted from the source
+    private int currentLine() {
+        if (tokens != null) {
+            locate(tokens.starts[Math.min(tokenIndex, tokens.count) - 1]);
+            return countedLine;
+        }
+        return lexer.getTokenLine();
+    }
+
+    // Returns column of the current token
+    private int currentColumn() {
+        if (tokens != null) {
+            int offset = tokens.starts[Math.min(tokenIndex, tokens.count) - 1];
+            locate(offset);
+            return offset - countedLineStart + 1;
+        }
+        return lexer.getTokenColumn();
+    }
+
+    // Counts line breaks of packed source up to offset
+    private void locate(int offset) {
+        if (offset < countedOffset) {
+            countedOffset = 0;
+            countedLine = 1;
+            countedLineStart = 0;
+        }
+        CharSequence source = tokens.source;
+        for (; countedOffset < offset; countedOffset++) {
+            if (source.charAt(countedOffset) == '\n') {
+                countedLine++;
+                countedLineStart = countedOffset + 1;
+            }
+        }
+    }
+    
+    // Parses factor (number, unary operation, variable, or expression in parentheses) from input
+    private AST factor() throws ParserException {
+        Token token = this.currentToken;
+
+        if (token.type == TokenType.PLUS) {
+            eat(TokenType.PLUS);
+            return new UnaryOp(token, factor());
+        } else if (token.type == TokenType.MINUS) {
+            eat(TokenType.MINUS);
+            return new UnaryOp(token, factor());
+        } else if (token.type == TokenType.INTEGER) {
+            return literal();
+        } else if (token.type == TokenType.LPAREN) {
+            eat(TokenType.LPAREN);
+            AST result = expr();
+            eat(TokenType.RPAREN);
+            return result;
+        } else {
+            AST node = variable();
+            return node;
+        }
+    }
+
+    // Parses integer literal
+    private AST literal() {
+        Token token = currentToken;
+        // Only literals of ten or more digits can be out of int range
+        boolean fits = token.value.length() < 10 || WideNum.fitsInt(token.value);
+        if (!fits && !wideLiterals) {
+            throw outOfRange();
+        }
+        eat(TokenType.INTEGER);
+        if (!fits) {
+            return new WideNum(token);
+        }
+        return new Num(token);
+    }
+
+    // Parses expression like expr() with a shunting-yard loop over an ExpressionStack. Unary operators bind to
+    // the next factor, '*' binds tighter than '+' and '-', and binary operators are left-associative, so it
+    // builds the tree expr() builds and fails at the same token with the same error
+    private AST iterativeExpr() {
+        ExpressionStack stack = new ExpressionStack();
+        int openParens = 0;
+        while (true) {
+            // Operand position: prefix operators and '(' stack up until a literal or variable completes a factor
+            Token token = currentToken;
+            if (token.type == TokenType.PLUS || token.type == TokenType.MINUS || token.type == TokenType.LPAREN) {
+                eat(token.type);
+                stack.pushOperator(token, token.type != TokenType.LPAREN);
+                if (token.type == TokenType.LPAREN) {
+                    openParens++;
+                }
+                continue;
+            }
+            stack.pushOperand(token.type == TokenType.INTEGER ? literal() : variable());
+
+            // Operator position: a factor is complete, so prefix operators apply to it. A ')' closes a factor
+            // in turn, which the prefix operators before its '(' then apply to
+            stack.applyUnary();
+            while (currentToken.type == TokenType.RPAREN && openParens > 0) {
+                eat(TokenType.RPAREN);
+                stack.reduce(ExpressionStack.OPEN_PAREN);
+                stack.popOperator();
+                openParens--;
+                stack.applyUnary();
+            }
+
+            token = currentToken;
+            if (token.type != TokenType.MUL && token.type != TokenType.PLUS && token.type != TokenType.MINUS) {
+                if (openParens > 0) {
+                    eat(TokenType.RPAREN);  // Fails, naming the token found instead
+                }
+                stack.reduce(ExpressionStack.OPEN_PAREN);
+                return stack.popOperand();
+            }
+            // Earlier operators of the same or higher precedence are complete, since all are left-associative
+            stack.reduce(ExpressionStack.precedence(token.type));
+            eat(token.type);
+            stack.pushOperator(token, false);
+        }
+    }
+
+    // Parses term (factor or multiplication operation on factors) from input
+    private AST term() throws ParserException {
+        AST node = factor();
+
+        while (currentToken.type == TokenType.MUL) {
+            Token token = currentToken;
+            eat(TokenType.MUL);
+            node = new BinOp(node, token, factor());
+        }
+        return node;
+    }
+
+    // Parses expression (term or addition/subtraction operation on terms) from input
+    private AST expr() throws ParserException {
+        AST node = term();
+
+        while (currentToken.type == TokenType.PLUS || currentToken.type == TokenType.MINUS) {
+            Token token = currentToken;
+            if (token.type == TokenType.PLUS) {
+                eat(TokenType.PLUS);
+            } else if (token.type == TokenType.MINUS) {
+                eat(TokenType.MINUS);
+            }
+            node = new BinOp(node, token, term());
+        }
+        return node;
+    }
+
+    // Parses assignment statement from input
+    private AST assignmentStatement() {
+        int line = currentLine();
+        int column = currentColumn();
+        Var left = variable();
+        Token token = currentToken;
+        eat(TokenType.ASSIGN);
+        AST right = iterative ? iterativeExpr() : expr();
+        eat(TokenType.SEMICOLON);
+        Assign node = new Assign(left, token, right);
+        node.line = line;
+        node.column = column;
+
+        return node;
+    }
+
+    // Parses variable from input
+    private Var variable() {
+        Var node = new Var(currentToken);
+        eat(TokenType.IDENTIFIER);
+        return node;
+    }
+
+    // Parses empty statement
+    private AST empty() {
+        return new NoOp();
+    }
+
+    // Parses statement (assignment statement or empty statemen) from the input
+    private AST statement() {
+        AST node;
+        if (currentToken.type == TokenType.IDENTIFIER) {
+            // If current token is an identifier, expect an assignment statement
+            node = assignmentStatement();
+        } else {
+            // Otherwise, it's an empty statement
+            node = empty();
+        }
+        return node;
+    }
+
+    // Parses a list of statements from input used to process multiple statements in code
+    private AST statementList() {
+        AST node = statement();
+        List<AST> results = new ArrayList<>();
+        results.add(node);
+
+        // Assignments consume their own ';', so the next statement may start right away or after extra ';'
+        while (currentToken.type == TokenType.SEMICOLON || currentToken.type == TokenType.IDENTIFIER) {
+            if (currentToken.type == TokenType.SEMICOLON) {
+                eat(TokenType.SEMICOLON);
+            }
+            results.add(statement());
+        }
+
+        Compound compoundNode = new Compound();
+        for (AST ast : results) {
+            compoundNode.add(ast);
+        }
+        return compoundNode;
+    }
+
+    // Parses input one statement at a time, so callers can run and drop each statement before reading the next.
+    // Skips empty statements and returns null at end of input
+    public AST nextStatement() {
+        while (currentToken.type == TokenType.SEMICOLON) {
+            eat(TokenType.SEMICOLON);
+        }
+        if (currentToken.type == TokenType.EOF) {
+            return null;
+        }
+        if (currentToken.type != TokenType.IDENTIFIER) {
+            throw error("Invalid syntax: expected statement");
+        }
+        return assignmentStatement();
+    }
+
+    // Parses entire input like program(), but records errors instead of throwing, so one pass finds every
+    // error. Invalid characters are skipped, a syntax error skips to the next ';'. A syntax error in a statement
+    // that already holds an invalid character is left out, it is usually caused by that character. Statements
+    // holding a syntax error are left out of the result
+    public List<ParsedStatement> programWithRecovery(List<SourceException> errors) {
+        recoveredErrors = errors;
+        List<ParsedStatement> statements = new ArrayList<>();
+        while (true) {
+            int errorCount = errors.size();
+            try {
+                while (currentToken.type == TokenType.SEMICOLON) {
+                    eat(TokenType.SEMICOLON);
+                }
+                if (currentToken.type == TokenType.EOF) {
+                    recoveredErrors = null;
+                    return statements;
+                }
+                int line = currentLine();
+                int column = currentColumn();
+                if (currentToken.type != TokenType.IDENTIFIER) {
+                    throw error("Invalid syntax: expected statement");
+                }
+                statements.add(new ParsedStatement(assignmentStatement(), line, column));
+            } catch (ParserException | LexerException e) {
+                // A literal out of range is reported while parsing, but is an error of its own
+                if (e instanceof LexerException || !hasLexerError(errors, errorCount)) {
+                    errors.add(e);
+                }
+                while (currentToken.type != TokenType.SEMICOLON && currentToken.type != TokenType.EOF) {
+                    currentToken = nextToken();
+                }
+            }
+        }
+    }
+
+    private static boolean hasLexerError(List<SourceException> errors, int from) {
+        for (int i = from; i < errors.size(); i++) {
+            if (errors.get(i) instanceof LexerException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Starting point of grammar, parses entire input and builds AST from it
+    public AST program() {
+        AST node = statementList();
+        if (currentToken.type != TokenType.EOF) {
+            throw error("Invalid syntax: expected ';'");
+        }
+
+        return node;
+    }
+
+    // Parses entire input into an AstArena instead of AST objects. Grammar is the same as program(),
+    // empty statements are skipped
+    public AstArena programArena() {
+        AstArena arena = new AstArena(tokens != null ? tokens.symbols : new SymbolPool());
+        while (true) {
+            while (currentToken.type == TokenType.SEMICOLON) {
+                eat(TokenType.SEMICOLON);
+            }
+            if (currentToken.type != TokenType.IDENTIFIER) {
+                break;
+            }
+            arena.addStatement(arenaAssignment(arena));
+        }
+        if (currentToken.type != TokenType.EOF) {
+            throw error("Invalid syntax: expected ';'");
+        }
+        arena.trim();
+        return arena;
+    }
+
+    // Parses assignment statement into arena
+    private int arenaAssignment(AstArena arena) {
+        int symbol = currentSymbol(arena);
+        eat(TokenType.IDENTIFIER);
+        eat(TokenType.ASSIGN);
+        int expr = arenaExpr(arena);
+        eat(TokenType.SEMICOLON);
+        return arena.assign(symbol, expr);
+    }
+
+    // Parses expression into arena
+    private int arenaExpr(AstArena arena) {
+        int node = arenaTerm(arena);
+        while (currentToken.type == TokenType.PLUS || currentToken.type == TokenType.MINUS) {
+            TokenType op = currentToken.type;
+            eat(op);
+            node = arena.binOp(op, node, arenaTerm(arena));
+        }
+        return node;
+    }
+
+    // Parses term into arena
+    private int arenaTerm(AstArena arena) {
+        int node = arenaFactor(arena);
+        while (currentToken.type == TokenType.MUL) {
+            eat(TokenType.MUL);
+            node = arena.binOp(TokenType.MUL, node, arenaFactor(arena));
+        }
+        return node;
+    }
+
+    // Parses factor into arena
+    private int arenaFactor(AstArena arena) {
+        TokenType type = currentToken.type;
+        if (type == TokenType.PLUS || type == TokenType.MINUS) {
+            eat(type);
+            return arena.unaryOp(type, arenaFactor(arena));
+        } else if (type == TokenType.INTEGER) {
+            // Packed tokens were range-checked by PackedLexer, only literals of ten or more digits can be out of range
+            if (tokens == null && currentToken.value.length() >= 10 && !WideNum.fitsInt(currentToken.value)) {
+                throw outOfRange();
+            }
+            int value = tokens != null ? tokens.values[tokenIndex - 1] : Integer.parseInt(currentToken.value);
+            eat(TokenType.INTEGER);
+            return arena.num(value);
+        } else if (type == TokenType.LPAREN) {
+            eat(TokenType.LPAREN);
+            int node = arenaExpr(arena);
+            eat(TokenType.RPAREN);
+            return node;
+        }
+        int symbol = type == TokenType.IDENTIFIER ? currentSymbol(arena) : -1;
+        eat(TokenType.IDENTIFIER);
+        return arena.var(symbol);
+    }
+
+    // Returns symbol id of current identifier. Packed streams already carry it
+    private int currentSymbol(AstArena arena) {
+        if (tokens != null && tokens.symbols == arena.symbols) {
+            return tokens.values[tokenIndex - 1];
+        }
+        return arena.symbols.intern(currentToken.value, 0, currentToken.value.length());
+    }
+}
+
+abstract class AST {
+    AST() {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.nodeCreated();
+        }
+    }
+}
+
+class BinOp extends AST {
+    public AST left;
+    public Token op;
+    public AST right;
+
+    public BinOp(AST left, Token op, AST right) {
+        this.left = left;
+        this.op = op;
+        this.right = right;
+    }
+}
+
+class UnaryOp extends AST {
+    public Token op;
+    public AST expr;
+
+    public UnaryOp(Token op, AST expr) {
+        this.op = op;
+        this.expr = expr;
+    }
+}
+
+class Num extends AST {
+    public Token token;
+    public int value;  // Literal parsed once here instead of on every evaluation
+
+    public Num(Token token) {
+        this.token = token;
+        this.value = Integer.parseInt(token.value);
+    }
+}
+
+// Literal beyond int range, only created when Parser accepts wide literals
+class WideNum extends AST {
+    public Token token;
+    public Number value;  // Long when it fits, BigInteger otherwise
+
+    public WideNum(Token token) {
+        this.token = token;
+        this.value = WideInterpreter.normalize(new BigInteger(token.value));
+    }
+
+    // Checks if literal fits in an int. Only literals beyond int range pay for the exception
+    static boolean fitsInt(String digits) {
+        try {
+            Integer.parseInt(digits);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
+
+class Var extends AST {
+    public Token token;
+    public String value;
+    public int slot = -1;  // Frame slot, assigned by SemanticAnalyzer
+
+    public Var(Token token) {
+        this.token = token;
+        this.value = token.value;
+    }
+}
+
+class Assign extends AST {
+    public Var left;
+    public Token op;
+    public AST right;
+    public int line;  // Position of the target in source, 0 when the statement wasn't parsed from source
+    public int column;
+
+    public Assign(Var left, Token op, AST right) {
+        this.left = left;
+        this.op = op;
+        this.right = right;
+    }
+}
+
+class NoOp extends AST {
+}
+
+// Operand and operator stacks of Parser.iterativeExpr. Pending unary operators and open parentheses sit on
+// the operator stack next to binary operators
+class ExpressionStack {
+    // Precedence levels. An open parenthesis is below every operator, so reducing to it stops there
+    static final int OPEN_PAREN = 0;
+    static final int SUM = 1;
+    static final int PRODUCT = 2;
+
+    private AST[] operands = new AST[16];
+    private int operandCount = 0;
+    private Token[] operators = new Token[16];
+    private boolean[] unary = new boolean[16];
+    private int operatorCount = 0;
+
+    static int precedence(TokenType type) {
+        if (type == TokenType.MUL) {
+            return PRODUCT;
+        }
+        return type == TokenType.PLUS || type == TokenType.MINUS ? SUM : OPEN_PAREN;
+    }
+
+    void pushOperand(AST operand) {
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, operandCount * 2);
+        }
+        operands[operandCount++] = operand;
+    }
+
+    AST popOperand() {
+        return operands[--operandCount];
+    }
+
+    void pushOperator(Token token, boolean isUnary) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+            unary = Arrays.copyOf(unary, operatorCount * 2);
+        }
+        unary[operatorCount] = isUnary;
+        operators[operatorCount++] = token;
+    }
+
+    void popOperator() {
+        operators[--operatorCount] = null;
+    }
+
+    // Wraps top operand in the unary operators directly below it, innermost first
+    void applyUnary() {
+        while (operatorCount > 0 && unary[operatorCount - 1]) {
+            Token op = operators[--operatorCount];
+            operands[operandCount - 1] = new UnaryOp(op, operands[operandCount - 1]);
+        }
+    }
+
+    // Combines operands with pending binary operators of at least given precedence, latest first. Unary
+    // operators are already applied when this runs, so only binary operators and parentheses are pending
+    void reduce(int minPrecedence) {
+        while (operatorCount > 0 && precedence(operators[operatorCount - 1].type) >= minPrecedence
+                && operators[operatorCount - 1].type != TokenType.LPAREN) {
+            Token op = operators[--operatorCount];
+            AST right = operands[--operandCount];
+            operands[operandCount - 1] = new BinOp(operands[operandCount - 1], op, right);
+        }
+    }
+}
+
+// Top-level statement with the line and column it starts at
+class ParsedStatement {
+    public final AST node;
+    public final int line;
+    public final int column;
+
+    public ParsedStatement(AST node, int line, int column) {
+        this.node = node;
+        this.line = line;
+        this.column = column;
+    }
+}
+
+class Compound extends AST {
+    public List<AST> children;
+
+    public Compound() {
+        children = new ArrayList<>();
+    }
+
+    public void add(AST node) {
+        children.add(node);
+    }
+}
+
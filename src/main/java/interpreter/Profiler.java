@@ -0,0 +1,224 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Node of the call tree: one per distinct path of frames from the program root
+class ProfileFrame {
+    final String name;
+    final ProfileFrame parent;
+    final Map<String, ProfileFrame> children = new HashMap<>();
+    long count = 0;  // Times a node on this path was visited
+    long selfNanos = 0;  // Time spent in those nodes, minus time spent in their children
+
+    ProfileFrame(String name, ProfileFrame parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    ProfileFrame child(String childName) {
+        ProfileFrame child = children.get(childName);
+        if (child == null) {
+            child = new ProfileFrame(childName, this);
+            children.put(childName, child);
+        }
+        return child;
+    }
+}
+
+// Totals of one statement, keyed by its source position
+class StatementProfile {
+    final int line;
+    final int column;
+    final String target;
+    long count = 0;
+    long nanos = 0;  // Cumulative time, children included
+
+    StatementProfile(int line, int column, String target) {
+        this.line = line;
+        this.column = column;
+        this.target = target;
+    }
+}
+
+// Opt-in profiler of Interpreter. Times every node visit, and from those builds per-statement counts and
+// cumulative time, a call tree of self times per node for flame graphs, visit counts per node type and read
+// counts per variable. Timing each node costs a System.nanoTime pair, so profiled runs are several times
+// slower, but their relative costs hold
+public class Profiler {
+    // Node types counted, indexed as in typeIndex
+    private static final String[] TYPE_NAMES = {"Compound", "Assign", "BinOp", "UnaryOp", "Num", "Var", "NoOp"};
+
+    private final ProfileFrame root = new ProfileFrame("program", null);
+    private ProfileFrame current = root;
+    // Start time and time spent in children of every frame being visited, indexed by depth
+    private long[] starts = new long[64];
+    private long[] childNanos = new long[64];
+    private int depth = 0;
+
+    private final Map<String, StatementProfile> statements = new HashMap<>();
+    private final long[] typeCounts = new long[TYPE_NAMES.length];
+    private final Map<String, long[]> reads = new HashMap<>();
+
+    // Called by Interpreter before it evaluates node
+    void enter(AST node) {
+        typeCounts[typeIndex(node)]++;
+        if (node instanceof Var) {
+            long[] count = reads.get(((Var) node).value);
+            if (count == null) {
+                count = new long[1];
+                reads.put(((Var) node).value, count);
+            }
+            count[0]++;
+        }
+        if (!(node instanceof Compound)) {
+            current = current.child(frameName(node));
+        }
+        if (depth == starts.length) {
+            starts = Arrays.copyOf(starts, depth * 2);
+            childNanos = Arrays.copyOf(childNanos, depth * 2);
+        }
+        childNanos[depth] = 0;
+        starts[depth++] = System.nanoTime();
+    }
+
+    // Called by Interpreter after it evaluated node, also when evaluation failed
+    void exit(AST node) {
+        long elapsed = System.nanoTime() - starts[--depth];
+        if (depth > 0) {
+            childNanos[depth - 1] += elapsed;
+        }
+        if (node instanceof Compound) {
+            return;  // Root frame, statements below it carry the time
+        }
+        current.count++;
+        current.selfNanos += elapsed - childNanos[depth];
+        current = current.parent;
+        if (node instanceof Assign) {
+            Assign assign = (Assign) node;
+            String key = assign.line + ":" + assign.column + " " + assign.left.value;
+            StatementProfile statement = statements.get(key);
+            if (statement == null) {
+                statement = new StatementProfile(assign.line, assign.column, assign.left.value);
+                statements.put(key, statement);
+            }
+            statement.count++;
+            statement.nanos += elapsed;
+        }
+    }
+
+    // Writes statements sorted by cumulative time, then visit counts per node type and reads per variable,
+    // each sorted by count. At most limit rows per table
+    public void printReport(PrintStream out, int limit) {
+        List<StatementProfile> sorted = new ArrayList<>(statements.values());
+        sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        long total = 0;
+        for (StatementProfile statement : sorted) {
+            total += statement.nanos;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Hot statements (%d statements, %.3f ms total)%n", sorted.size(), total / 1e6));
+        report.append(String.format("%10s %-20s %10s %12s %7s%n", "position", "target", "count", "micros", "share"));
+        for (StatementProfile statement : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            report.append(String.format("%10s %-20s %10d %12.1f %6.2f%%%n",
+                    statement.line + ":" + statement.column, statement.target, statement.count,
+                    statement.nanos / 1e3, total > 0 ? 100.0 * statement.nanos / total : 0));
+        }
+
+        report.append(String.format("%nNode visits by type%n"));
+        Integer[] types = new Integer[TYPE_NAMES.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = i;
+        }
+        Arrays.sort(types, (a, b) -> Long.compare(typeCounts[b], typeCounts[a]));
+        for (int type : types) {
+            if (typeCounts[type] > 0) {
+                report.append(String.format("%10s %12d%n", TYPE_NAMES[type], typeCounts[type]));
+            }
+        }
+
+        report.append(String.format("%nVariable reads%n"));
+        List<Map.Entry<String, long[]>> variables = new ArrayList<>(reads.entrySet());
+        variables.sort((a, b) -> b.getValue()[0] != a.getValue()[0]
+                ? Long.compare(b.getValue()[0], a.getValue()[0]) : a.getKey().compareTo(b.getKey()));
+        for (Map.Entry<String, long[]> entry : variables.subList(0, Math.min(limit, variables.size()))) {
+            report.append(String.format("%20s %12d%n", entry.getKey(), entry.getValue()[0]));
+        }
+        out.print(report);
+        out.flush();
+    }
+
+    // Writes call tree in collapsed-stack form, one "frame;frame;... selfNanos" line per path, which
+    // flamegraph.pl, speedscope and similar tools read. Paths are sorted so equal runs give equal files
+    public void writeCollapsed(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        collect(root, new StringBuilder(root.name), lines);
+        lines.sort(null);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    // Walks call tree with an explicit stack, since it is as deep as the deepest expression
+    private static void collect(ProfileFrame root, StringBuilder rootPath, List<String> lines) {
+        List<ProfileFrame> frames = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        frames.add(root);
+        paths.add(rootPath.toString());
+        while (!frames.isEmpty()) {
+            ProfileFrame frame = frames.remove(frames.size() - 1);
+            String path = paths.remove(paths.size() - 1);
+            if (frame.selfNanos > 0) {
+                lines.add(path + " " + frame.selfNanos);
+            }
+            for (ProfileFrame child : frame.children.values()) {
+                frames.add(child);
+                paths.add(path + ";" + child.name);
+            }
+        }
+    }
+
+    // Frame name of node. Names hold no ';' or trailing number, which collapsed stacks reserve
+    private static String frameName(AST node) {
+        if (node instanceof Assign) {
+            Assign assign = (Assign) node;
+            return assign.left.value + " = @" + assign.line + ":" + assign.column;
+        } else if (node instanceof BinOp) {
+            return "BinOp(" + ((BinOp) node).op.value + ")";
+        } else if (node instanceof UnaryOp) {
+            return "UnaryOp(" + ((UnaryOp) node).op.value + ")";
+        } else if (node instanceof Var) {
+            return "Var(" + ((Var) node).value + ")";
+        }
+        return TYPE_NAMES[typeIndex(node)];
+    }
+
+    private static int typeIndex(AST node) {
+        if (node instanceof Compound) {
+            return 0;
+        } else if (node instanceof Assign) {
+            return 1;
+        } else if (node instanceof BinOp) {
+            return 2;
+        } else if (node instanceof UnaryOp) {
+            return 3;
+        } else if (node instanceof Num) {
+            return 4;
+        } else if (node instanceof Var) {
+            return 5;
+        }
+        return 6;
+    }
+}
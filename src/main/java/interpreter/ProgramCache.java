@@ -0,0 +1,401 @@
+package interpreter;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+// Memory tier entry: program plus the bytes it is charged for
+class CacheEntry {
+    final CompiledProgram program;
+    final long size;
+
+    CacheEntry(CompiledProgram program, long size) {
+        this.program = program;
+        this.size = size;
+    }
+}
+
+// Cache of compiled programs keyed by the SHA-256 of their source text, so a warm run skips Lexer, Parser,
+// Optimizer, SemanticAnalyzer and BytecodeCompiler entirely. The memory tier is an LRU bounded by the estimated
+// bytes of its programs. The optional disk tier keeps one memory-mapped file per program holding its bytecode,
+// guarded by a header and a CRC32 so stale or corrupt files are detected, deleted and recompiled
+public class ProgramCache {
+    // File layout: magic, format version, SHA-256 of source, payload length, payload CRC32, payload
+    private static final int MAGIC = 0x43495343;  // "CISC"
+    // Bumped whenever the payload or the bytecode it holds changes meaning, which makes older files stale
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_LENGTH = 4 + 4 + HASH_LENGTH + 4 + 8;
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;  // Disk tier, null for memory only
+    private final long maxMemoryBytes;
+    private long memoryBytes = 0;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CacheEntry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    // Programs being read from disk or compiled, so callers asking for the same source wait for one load
+    // instead of repeating it. Loads run outside the cache's lock, so different programs compile in parallel
+    private final ConcurrentHashMap<String, CompletableFuture<CompiledProgram>> loading = new ConcurrentHashMap<>();
+
+    private long memoryHits = 0;
+    private long diskHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long discarded = 0;  // Stale or corrupt disk entries
+
+    // Constructor takes in directory of disk tier, or null for memory only, and memory tier budget in bytes
+    public ProgramCache(Path directory, long maxMemoryBytes) throws IOException {
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    // Returns compiled program of source, from memory, from disk or by compiling it. Invalid programs throw
+    // the same exceptions as CompiledProgram.compile and are never cached
+    public CompiledProgram get(String source) {
+        byte[] hash = hash(source);
+        String key = toHex(hash);
+        CompiledProgram program = getMemory(key);
+        if (program != null) {
+            return program;
+        }
+
+        CompletableFuture<CompiledProgram> load = new CompletableFuture<>();
+        CompletableFuture<CompiledProgram> running = loading.putIfAbsent(key, load);
+        if (running != null) {
+            program = await(running);
+            synchronized (this) {
+                memoryHits++;  // Served from memory once the other caller's load finished
+            }
+            return program;
+        }
+        try {
+            // Another caller may have finished loading it between the memory lookup and putIfAbsent
+            program = getMemory(key);
+            if (program == null) {
+                program = load(key, hash, source);
+                synchronized (this) {
+                    putMemory(key, program);
+                }
+            }
+            load.complete(program);
+            return program;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key);
+        }
+    }
+
+    // Returns counters as one machine-readable line
+    public synchronized String getStats() {
+        return "cache memoryHits=" + memoryHits + " diskHits=" + diskHits + " misses=" + misses
+                + " evictions=" + evictions + " discarded=" + discarded + " memoryBytes=" + memoryBytes
+                + " entries=" + memory.size();
+    }
+
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getDiscarded() {
+        return discarded;
+    }
+
+    private synchronized CompiledProgram getMemory(String key) {
+        CacheEntry entry = memory.get(key);
+        if (entry == null) {
+            return null;
+        }
+        memoryHits++;
+        return entry.program;
+    }
+
+    // Reads program from disk, or compiles it and writes it there. Runs without holding the cache's lock
+    private CompiledProgram load(String key, byte[] hash, String source) {
+        CompiledProgram program = directory != null ? readDisk(key, hash) : null;
+        if (program != null) {
+            synchronized (this) {
+                diskHits++;
+            }
+            return program;
+        }
+        synchronized (this) {
+            misses++;
+        }
+        program = CompiledProgram.compile(source);
+        if (directory != null) {
+            writeDisk(key, hash, program.getBytecode());
+        }
+        return program;
+    }
+
+    // Waits for a load started by another caller and fails the same way it did
+    private static CompiledProgram await(CompletableFuture<CompiledProgram> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    // Adds program to memory tier, evicting least recently used entries until it fits. A program larger than
+    // the whole budget is returned without being kept
+    private void putMemory(String key, CompiledProgram program) {
+        long size = estimateSize(program.getBytecode());
+        if (size > maxMemoryBytes) {
+            return;
+        }
+        Iterator<CacheEntry> eldest = memory.values().iterator();
+        while (memoryBytes + size > maxMemoryBytes && eldest.hasNext()) {
+            memoryBytes -= eldest.next().size;
+            eldest.remove();
+            evictions++;
+        }
+        memory.put(key, new CacheEntry(program, size));
+        memoryBytes += size;
+    }
+
+    // Reads program from its file. Returns null when there is none, or when it is stale or corrupt, in which
+    // case the file is deleted so the recompiled program replaces it
+    private CompiledProgram readDisk(String key, byte[] hash) {
+        Path file = directory.resolve(key + SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE) {
+                return discard(file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return discard(file);
+            }
+            byte[] storedHash = new byte[HASH_LENGTH];
+            buffer.get(storedHash);
+            int payloadLength = buffer.getInt();
+            long checksum = buffer.getLong();
+            // A file whose name doesn't match its content was copied or renamed, treat it as stale
+            if (!Arrays.equals(storedHash, hash) || payloadLength != buffer.remaining()) {
+                return discard(file);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum) {
+                return discard(file);
+            }
+            return new CompiledProgram(readBytecode(buffer));
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return discard(file);
+        }
+    }
+
+    private CompiledProgram discard(Path file) {
+        synchronized (this) {
+            discarded++;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left in place, it will be overwritten by the next write
+        }
+        return null;
+    }
+
+    // Writes program to a temporary file through a mapping, then moves it into place so readers never see a
+    // partial file. A failed write only costs the disk tier this entry
+    private void writeDisk(String key, byte[] hash, Bytecode bytecode) {
+        byte[][] names = new byte[bytecode.slotNames.length][];
+        int payloadLength = 4 + 4 + 4 * bytecode.code.length + 4 + 4 * bytecode.constants.length + 4;
+        for (int slot = 0; slot < names.length; slot++) {
+            names[slot] = bytecode.slotNames[slot].getBytes(StandardCharsets.UTF_8);
+            payloadLength += 4 + names[slot].length;
+        }
+
+        Path file = directory.resolve(key + SUFFIX);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_LENGTH + payloadLength);
+                buffer.position(HEADER_LENGTH);
+                buffer.putInt(bytecode.maxStack);
+                buffer.putInt(bytecode.code.length);
+                for (int instruction : bytecode.code) {
+                    buffer.putInt(instruction);
+                }
+                buffer.putInt(bytecode.constants.length);
+                for (int constant : bytecode.constants) {
+                    buffer.putInt(constant);
+                }
+                buffer.putInt(names.length);
+                for (byte[] name : names) {
+                    buffer.putInt(name.length);
+                    buffer.put(name);
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(buffer.duplicate().position(HEADER_LENGTH).limit(HEADER_LENGTH + payloadLength));
+                buffer.position(0);
+                buffer.putInt(MAGIC);
+                buffer.putInt(FORMAT_VERSION);
+                buffer.put(hash);
+                buffer.putInt(payloadLength);
+                buffer.putLong(crc.getValue());
+                buffer.force();
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            try {
+                if (temporary != null) {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (IOException ignored) {
+                // Nothing else to clean up
+            }
+        }
+    }
+
+    // Reads payload written by writeDisk. Lengths are checked against what is left, so a corrupt length fails
+    // with IllegalArgumentException instead of allocating
+    private static Bytecode readBytecode(ByteBuffer buffer) {
+        int maxStack = buffer.getInt();
+        int[] code = readInts(buffer);
+        int[] constants = readInts(buffer);
+        String[] slotNames = new String[checkLength(buffer, buffer.getInt(), 4)];
+        for (int slot = 0; slot < slotNames.length; slot++) {
+            byte[] name = new byte[checkLength(buffer, buffer.getInt(), 1)];
+            buffer.get(name);
+            slotNames[slot] = new String(name, StandardCharsets.UTF_8);
+        }
+        if (buffer.hasRemaining() || maxStack < 0) {
+            throw new IllegalArgumentException("Trailing bytes");
+        }
+        verify(code, constants.length, slotNames.length, maxStack);
+        return new Bytecode(code, constants, slotNames, maxStack);
+    }
+
+    // Checks every opcode and operand is in range, code ends in HALT and the operand stack never underflows or
+    // grows past maxStack, so the VirtualMachine can't run off an array even if a file with a matching
+    // checksum was written by something else. Code has no jumps, so one pass sees every path
+    private static void verify(int[] code, int constantCount, int slotCount, int maxStack) {
+        int pc = 0;
+        int depth = 0;
+        while (pc < code.length) {
+            int opcode = code[pc++];
+            if (opcode == Opcode.CONST || opcode == Opcode.LOAD) {
+                depth++;
+            } else if (opcode == Opcode.STORE || opcode == Opcode.NEG) {
+                if (depth < 1) {
+                    throw new IllegalArgumentException("Stack underflow");
+                }
+                if (opcode == Opcode.STORE) {
+                    depth--;
+                }
+            } else if (opcode == Opcode.ADD || opcode == Opcode.SUB || opcode == Opcode.MUL) {
+                if (depth < 2) {
+                    throw new IllegalArgumentException("Stack underflow");
+                }
+                depth--;
+            }
+            if (depth > maxStack) {
+                throw new IllegalArgumentException("Stack overflow");
+            }
+            if (opcode == Opcode.CONST || opcode == Opcode.LOAD || opcode == Opcode.STORE) {
+                int limit = opcode == Opcode.CONST ? constantCount : slotCount;
+                if (pc == code.length || code[pc] < 0 || code[pc] >= limit) {
+                    throw new IllegalArgumentException("Invalid operand");
+                }
+                pc++;
+            } else if (opcode < Opcode.CONST || opcode > Opcode.HALT) {
+                throw new IllegalArgumentException("Invalid opcode");
+            } else if (opcode == Opcode.HALT && pc != code.length) {
+                throw new IllegalArgumentException("Code after HALT");
+            }
+        }
+        if (code.length == 0 || code[code.length - 1] != Opcode.HALT) {
+            throw new IllegalArgumentException("Missing HALT");
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[checkLength(buffer, buffer.getInt(), 4)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * values.length);
+        return values;
+    }
+
+    private static int checkLength(ByteBuffer buffer, int length, int bytesEach) {
+        if (length < 0 || (long) length * bytesEach > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid length");
+        }
+        return length;
+    }
+
+    // Estimates heap bytes held by bytecode: array contents plus headers, and names as Latin-1 strings
+    private static long estimateSize(Bytecode bytecode) {
+        long size = 64 + 16 + 4L * bytecode.code.length + 16 + 4L * bytecode.constants.length;
+        for (String name : bytecode.slotNames) {
+            size += 8 + 40 + name.length();
+        }
+        return size;
+    }
+
+    static byte[] hash(String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package interpreter;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Final variable values of one CompiledProgram run. Owns its frame, so it never changes after execute returns
+public final class ProgramResult {
+    private final List<String> names;  // Variable name of each slot, shared with the program
+    private final Map<String, Integer> slots;  // Slot of each variable name, shared with the program
+    private final int[] values;  // Value of each slot
+
+    ProgramResult(List<String> names, Map<String, Integer> slots, int[] values) {
+        this.names = names;
+        this.slots = slots;
+        this.values = values;
+    }
+
+    // Returns value of variable, or null if the program never assigns it
+    public Integer get(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? null : values[slot];
+    }
+
+    // Returns names of all variables, in order of first assignment
+    public List<String> getVariableNames() {
+        return names;
+    }
+
+    // Returns number of variables
+    public int size() {
+        return values.length;
+    }
+
+    // Returns copy of all values, indexed like getVariableNames
+    public int[] toArray() {
+        return Arrays.copyOf(values, values.length);
+    }
+
+    // Builds name/value table of all variables
+    public SymbolTable toSymbolTable() {
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < values.length; slot++) {
+            symbolTable.define(names.get(slot), values[slot]);
+        }
+        return symbolTable;
+    }
+
+    // Prints out values of all variables, in the same order as Interpreter.interpret
+    public void print(PrintStream out) {
+        VariableWriter.write(toSymbolTable(), out);
+    }
+
+    static List<String> names(String[] slotNames) {
+        return Collections.unmodifiableList(Arrays.asList(slotNames.clone()));
+    }
+}
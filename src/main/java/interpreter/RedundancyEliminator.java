@@ -0,0 +1,288 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Place in the tree holding a subexpression: child 0 or 1 of a parent node
+class ExpressionSite {
+    final AST parent;
+    final int child;  // 0 = BinOp.left, UnaryOp.expr or Assign.right, 1 = BinOp.right
+
+    ExpressionSite(AST parent, int child) {
+        this.parent = parent;
+        this.child = child;
+    }
+
+    void replace(AST node) {
+        if (parent instanceof Assign) {
+            ((Assign) parent).right = node;
+        } else if (parent instanceof UnaryOp) {
+            ((UnaryOp) parent).expr = node;
+        } else if (child == 0) {
+            ((BinOp) parent).left = node;
+        } else {
+            ((BinOp) parent).right = node;
+        }
+    }
+}
+
+// Subexpression computed more than once with the same operand values
+class CommonExpression {
+    final AST first;  // First occurrence, becomes the right side of the temporary
+    final int statement;  // Index of statement holding first occurrence
+    final int size;  // Nodes in the subexpression
+    final List<ExpressionSite> sites = new ArrayList<>();
+
+    CommonExpression(AST first, int statement, int size) {
+        this.first = first;
+        this.statement = statement;
+        this.size = size;
+    }
+}
+
+// Second optimizer pass, run on the checked AST since it relies on the slots SemanticAnalyzer records on every
+// Var. Removes assignments overwritten before any read (dead stores), then computes each repeated pure
+// subexpression once into a temporary when none of its variables were reassigned in between. Temporaries are
+// named with a '%' no identifier can contain, and VariableWriter leaves them out, so printed output is unchanged.
+// The rewritten tree must be analyzed again before it runs
+public class RedundancyEliminator {
+    // Prefix of temporaries holding common subexpressions
+    static final String TEMP_PREFIX = "%cse";
+
+    private int removedStoreCount = 0;
+    private int reusedCount = 0;  // Evaluations replaced by a temporary read
+    private int tempCount = 0;
+
+    // Subexpression ids, equal for structurally identical subexpressions over the same variable versions
+    private Map<String, Integer> ids = new HashMap<>();
+    private IdentityHashMap<AST, Integer> nodeIds = new IdentityHashMap<>();
+    private IdentityHashMap<AST, Integer> nodeSizes = new IdentityHashMap<>();
+
+    // Entry point. Tree must have been visited by SemanticAnalyzer. Returns the rewritten tree
+    public AST optimize(AST tree) {
+        if (!(tree instanceof Compound)) {
+            return tree;
+        }
+        Compound compound = (Compound) tree;
+        compound.children = eliminateCommonSubexpressions(eliminateDeadStores(compound.children));
+        return compound;
+    }
+
+    // Returns number of assignments removed because their value was never read
+    public int getRemovedStoreCount() {
+        return removedStoreCount;
+    }
+
+    // Returns number of subexpression evaluations replaced by reading a temporary
+    public int getReusedCount() {
+        return reusedCount;
+    }
+
+    // Returns number of temporaries introduced
+    public int getTempCount() {
+        return tempCount;
+    }
+
+    // Walks statements backwards. A store is dead when the next access to its slot is another store. The last
+    // store of every slot is always kept, so every variable still ends with the same value
+    private List<AST> eliminateDeadStores(List<AST> statements) {
+        int slotCount = 0;
+        for (AST statement : statements) {
+            if (statement instanceof Assign) {
+                slotCount = Math.max(slotCount, ((Assign) statement).left.slot + 1);
+            }
+        }
+        boolean[] overwritten = new boolean[slotCount];  // Next access after this point is a store
+        boolean[] dead = new boolean[statements.size()];
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (!(statements.get(i) instanceof Assign)) {
+                continue;
+            }
+            Assign assign = (Assign) statements.get(i);
+            if (overwritten[assign.left.slot]) {
+                // Its reads go away with it, so they don't keep earlier stores alive
+                dead[i] = true;
+                removedStoreCount++;
+                continue;
+            }
+            // Store happens after the right side is read, so the reads below win for x = x + 1
+            overwritten[assign.left.slot] = true;
+            markReads(assign.right, overwritten);
+        }
+
+        List<AST> kept = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (!dead[i]) {
+                kept.add(statements.get(i));
+            }
+        }
+        return kept;
+    }
+
+    private static void markReads(AST node, boolean[] overwritten) {
+        if (node instanceof Var) {
+            overwritten[((Var) node).slot] = false;
+        } else if (node instanceof BinOp) {
+            markReads(((BinOp) node).left, overwritten);
+            markReads(((BinOp) node).right, overwritten);
+        } else if (node instanceof UnaryOp) {
+            markReads(((UnaryOp) node).expr, overwritten);
+        }
+    }
+
+    // Walks statements forwards giving every subexpression an id that includes the version of each variable it
+    // reads, so a reassignment in between makes the same text a different expression. The largest repeated
+    // subexpressions are matched first, and a match isn't searched further
+    private List<AST> eliminateCommonSubexpressions(List<AST> statements) {
+        Map<Integer, CommonExpression> available = new HashMap<>();
+        List<CommonExpression> candidates = new ArrayList<>();
+        Map<Integer, Integer> versions = new HashMap<>();  // Stores so far to each slot
+        for (int i = 0; i < statements.size(); i++) {
+            if (!(statements.get(i) instanceof Assign)) {
+                continue;
+            }
+            Assign assign = (Assign) statements.get(i);
+            number(assign.right, versions);
+            match(new ExpressionSite(assign, 0), assign.right, i, available, candidates);
+            versions.merge(assign.left.slot, 1, Integer::sum);
+        }
+        nodeIds.clear();
+        nodeSizes.clear();
+        ids.clear();
+
+        List<List<Assign>> temps = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            temps.add(null);
+        }
+        for (CommonExpression candidate : candidates) {
+            // Each reuse saves evaluating size - 1 nodes, the temporary costs one store and one read
+            if ((candidate.sites.size() - 1) * (candidate.size - 1) <= 2) {
+                continue;
+            }
+            String name = TEMP_PREFIX + tempCount++;
+            for (ExpressionSite site : candidate.sites) {
+                site.replace(new Var(new Token(TokenType.IDENTIFIER, name)));
+            }
+            reusedCount += candidate.sites.size() - 1;
+            if (temps.get(candidate.statement) == null) {
+                temps.set(candidate.statement, new ArrayList<>());
+            }
+            // A temporary takes the position of the statement it is computed for
+            Assign temp = new Assign(new Var(new Token(TokenType.IDENTIFIER, name)),
+                    new Token(TokenType.ASSIGN, "="), candidate.first);
+            temp.line = ((Assign) statements.get(candidate.statement)).line;
+            temp.column = ((Assign) statements.get(candidate.statement)).column;
+            temps.get(candidate.statement).add(temp);
+        }
+
+        List<AST> rewritten = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (temps.get(i) != null) {
+                orderTemps(temps.get(i), rewritten);
+            }
+            rewritten.add(statements.get(i));
+        }
+        return rewritten;
+    }
+
+    // Appends temporaries of one statement so each comes after the temporaries its right side reads. A
+    // candidate found inside another one's first occurrence is read by that one's temporary
+    private static void orderTemps(List<Assign> temps, List<AST> rewritten) {
+        Map<String, Assign> pending = new HashMap<>();
+        for (Assign temp : temps) {
+            pending.put(temp.left.value, temp);
+        }
+        for (Assign temp : temps) {
+            appendTemp(temp, pending, rewritten);
+        }
+    }
+
+    private static void appendTemp(Assign temp, Map<String, Assign> pending, List<AST> rewritten) {
+        if (pending.remove(temp.left.value) == null) {
+            return;  // Already appended
+        }
+        List<String> reads = new ArrayList<>();
+        collectTempReads(temp.right, reads);
+        for (String name : reads) {
+            Assign dependency = pending.get(name);
+            if (dependency != null) {
+                appendTemp(dependency, pending, rewritten);
+            }
+        }
+        rewritten.add(temp);
+    }
+
+    private static void collectTempReads(AST node, List<String> reads) {
+        if (node instanceof Var && ((Var) node).value.startsWith(TEMP_PREFIX)) {
+            reads.add(((Var) node).value);
+        } else if (node instanceof BinOp) {
+            collectTempReads(((BinOp) node).left, reads);
+            collectTempReads(((BinOp) node).right, reads);
+        } else if (node instanceof UnaryOp) {
+            collectTempReads(((UnaryOp) node).expr, reads);
+        }
+    }
+
+    // Records site of node under its id, or starts a new candidate and searches its operands
+    private void match(ExpressionSite site, AST node, int statement, Map<Integer, CommonExpression> available,
+                       List<CommonExpression> candidates) {
+        if (!(node instanceof BinOp) && !(node instanceof UnaryOp)) {
+            return;
+        }
+        int id = nodeIds.get(node);
+        CommonExpression candidate = available.get(id);
+        if (candidate != null) {
+            candidate.sites.add(site);
+            return;
+        }
+        candidate = new CommonExpression(node, statement, nodeSizes.get(node));
+        candidate.sites.add(site);
+        available.put(id, candidate);
+        candidates.add(candidate);
+        if (node instanceof BinOp) {
+            match(new ExpressionSite(node, 0), ((BinOp) node).left, statement, available, candidates);
+            match(new ExpressionSite(node, 1), ((BinOp) node).right, statement, available, candidates);
+        } else {
+            match(new ExpressionSite(node, 0), ((UnaryOp) node).expr, statement, available, candidates);
+        }
+    }
+
+    // Gives node and its operands ids and sizes. Operands of + and * are ordered, so a * b matches b * a
+    private int number(AST node, Map<Integer, Integer> versions) {
+        String key;
+        int size = 1;
+        if (node instanceof Num) {
+            key = "n" + ((Num) node).value;
+        } else if (node instanceof Var) {
+            int slot = ((Var) node).slot;
+            key = "v" + slot + "@" + versions.getOrDefault(slot, 0);
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            int operand = number(unaryOp.expr, versions);
+            size += nodeSizes.get(unaryOp.expr);
+            key = unaryOp.op.value + operand;
+        } else {
+            BinOp binOp = (BinOp) node;
+            int left = number(binOp.left, versions);
+            int right = number(binOp.right, versions);
+            size += nodeSizes.get(binOp.left) + nodeSizes.get(binOp.right);
+            if (binOp.op.type != TokenType.MINUS && right < left) {
+                int swap = left;
+                left = right;
+                right = swap;
+            }
+            key = binOp.op.value + left + "," + right;
+        }
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+        }
+        nodeIds.put(node, id);
+        nodeSizes.put(node, size);
+        return id;
+    }
+}
@@ -0,0 +1,307 @@
+package interpreter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// One statement of a session, with its cached value and links to the statements it reads from
+class SessionStatement {
+    Assign node;  // Parsed statement, kept so editing one statement never re-parses the others
+    String target;  // Variable this statement assigns
+    List<String> reads = new ArrayList<>();  // Variables read by the right side
+    Map<String, SessionStatement> reaching = new HashMap<>();  // Statement whose value each read sees
+    List<SessionStatement> dependents = new ArrayList<>();  // Statements reading this one's value
+    int position;  // Index in program order
+    int value;  // Value assigned the last time this statement ran
+    boolean executed = false;
+    boolean queued = false;  // Waiting to be executed by the current change
+
+    SessionStatement(Assign node) {
+        this.node = node;
+        this.target = node.left.token.value;
+        collectReads(node.right);
+    }
+
+    private void collectReads(AST node) {
+        if (node instanceof Var) {
+            reads.add(((Var) node).token.value);
+        } else if (node instanceof BinOp) {
+            collectReads(((BinOp) node).left);
+            collectReads(((BinOp) node).right);
+        } else if (node instanceof UnaryOp) {
+            collectReads(((UnaryOp) node).expr);
+        }
+    }
+}
+
+// Interactive session over a program that stays parsed between edits. Statements are linked by a def-use
+// graph from each variable read to the assignment it sees, so changing one statement re-parses only that
+// statement and re-executes only it and the statements whose inputs actually changed
+public class ReplSession {
+    private List<SessionStatement> statements = new ArrayList<>();
+    // Last assignment of every variable, i.e. the one that determines its final value
+    private Map<String, SessionStatement> finalDefinitions = new HashMap<>();
+    // Number of statements executed by the last change
+    private int lastExecutedCount = 0;
+
+    // Appends statements parsed from text and runs them
+    public void add(String text) {
+        List<SessionStatement> added = parse(text);
+        List<SessionStatement> updated = new ArrayList<>(statements);
+        updated.addAll(added);
+        apply(updated, added);
+    }
+
+    // Replaces statement at given 1-based position with a new one
+    public void edit(int number, String text) {
+        List<SessionStatement> parsed = parse(text);
+        if (parsed.size() != 1) {
+            throw new ParserException("Error: Expected exactly one statement");
+        }
+        List<SessionStatement> updated = new ArrayList<>(statements);
+        updated.set(checkPosition(number), parsed.get(0));
+        apply(updated, parsed);
+    }
+
+    // Removes statement at given 1-based position
+    public void delete(int number) {
+        List<SessionStatement> updated = new ArrayList<>(statements);
+        updated.remove(checkPosition(number));
+        apply(updated, new ArrayList<>());
+    }
+
+    // Returns final value of every variable
+    public Map<String, Integer> getVariables() {
+        Map<String, Integer> variables = new LinkedHashMap<>();
+        for (Map.Entry<String, SessionStatement> entry : finalDefinitions.entrySet()) {
+            variables.put(entry.getKey(), entry.getValue().value);
+        }
+        return variables;
+    }
+
+    // Returns number of statements executed by the last change
+    public int getLastExecutedCount() {
+        return lastExecutedCount;
+    }
+
+    // Returns number of statements in session
+    public int size() {
+        return statements.size();
+    }
+
+    // Reads commands until end of input or :quit. A line holding statements appends them, other commands are
+    // :edit N <statement>, :delete N, :list and :vars. After every change prints variables whose value changed
+    public void run(BufferedReader in, PrintStream out) throws IOException {
+        out.print("> ");
+        out.flush();
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.equals(":quit")) {
+                break;
+            }
+            try {
+                Map<String, Integer> before = getVariables();
+                if (line.startsWith(":edit ")) {
+                    String[] parts = line.substring(6).trim().split("\\s+", 2);
+                    edit(Integer.parseInt(parts[0]), parts.length > 1 ? parts[1] : "");
+                    printChanges(before, out);
+                } else if (line.startsWith(":delete ")) {
+                    delete(Integer.parseInt(line.substring(8).trim()));
+                    printChanges(before, out);
+                } else if (line.equals(":list")) {
+                    for (int i = 0; i < statements.size(); i++) {
+                        out.println((i + 1) + ": " + format(statements.get(i).node));
+                    }
+                } else if (line.equals(":vars")) {
+                    printVariables(getVariables(), out);
+                } else if (!line.isEmpty()) {
+                    add(line);
+                    printChanges(before, out);
+                }
+            } catch (RuntimeException e) {
+                out.println(e.getMessage());
+            }
+            out.print("> ");
+            out.flush();
+        }
+    }
+
+    // Parses statements of text. Only this text is lexed and parsed
+    private List<SessionStatement> parse(String text) {
+        List<SessionStatement> parsed = new ArrayList<>();
+        if (text.trim().isEmpty()) {
+            return parsed;
+        }
+        Parser parser = new Parser(new Lexer(text));
+        AST node;
+        while ((node = parser.nextStatement()) != null) {
+            parsed.add(new SessionStatement((Assign) node));
+        }
+        return parsed;
+    }
+
+    private int checkPosition(int number) {
+        if (number < 1 || number > statements.size()) {
+            throw new IllegalArgumentException("Error: No statement " + number);
+        }
+        return number - 1;
+    }
+
+    // Links updated statement list and, if every read still sees an assignment, makes it current and
+    // re-executes changed statements. Leaves session untouched when the change is rejected
+    private void apply(List<SessionStatement> updated, List<SessionStatement> changed) {
+        // Pass 1: resolve every read to the assignment it sees, without touching the current graph
+        List<Map<String, SessionStatement>> reaching = new ArrayList<>();
+        Map<String, SessionStatement> lastDefinition = new HashMap<>();
+        for (SessionStatement statement : updated) {
+            Map<String, SessionStatement> sees = new HashMap<>();
+            for (String name : statement.reads) {
+                SessionStatement definition = lastDefinition.get(name);
+                if (definition == null) {
+                    throw new SemanticAnalyzerException("Error: Variable not found " + name);
+                }
+                sees.put(name, definition);
+            }
+            reaching.add(sees);
+            lastDefinition.put(statement.target, statement);
+        }
+
+        // Pass 2: commit. Statements whose reads now see a different assignment must run again too
+        PriorityQueue<SessionStatement> pending = new PriorityQueue<>((a, b) -> Integer.compare(a.position, b.position));
+        for (int i = 0; i < updated.size(); i++) {
+            SessionStatement statement = updated.get(i);
+            statement.position = i;
+            statement.dependents.clear();
+            if (!statement.executed || !reaching.get(i).equals(statement.reaching)) {
+                enqueue(pending, statement);
+            }
+            statement.reaching = reaching.get(i);
+        }
+        for (SessionStatement statement : updated) {
+            for (SessionStatement definition : statement.reaching.values()) {
+                definition.dependents.add(statement);
+            }
+        }
+        for (SessionStatement statement : changed) {
+            enqueue(pending, statement);
+        }
+        statements = updated;
+        finalDefinitions = lastDefinition;
+
+        // Pass 3: run pending statements in program order. Dependents of a statement only run again if its value
+        // changed, every other cached value is reused
+        lastExecutedCount = 0;
+        while (!pending.isEmpty()) {
+            SessionStatement statement = pending.poll();
+            statement.queued = false;
+            int value = evaluate(statement.node.right, statement);
+            lastExecutedCount++;
+            boolean valueChanged = !statement.executed || value != statement.value;
+            statement.value = value;
+            statement.executed = true;
+            if (valueChanged) {
+                for (SessionStatement dependent : statement.dependents) {
+                    enqueue(pending, dependent);
+                }
+            }
+        }
+    }
+
+    private void enqueue(PriorityQueue<SessionStatement> pending, SessionStatement statement) {
+        if (!statement.queued) {
+            statement.queued = true;
+            pending.add(statement);
+        }
+    }
+
+    // Evaluates expression of statement, taking each variable from the assignment it sees
+    private int evaluate(AST node, SessionStatement statement) {
+        if (node instanceof Num) {
+            return ((Num) node).value;
+        } else if (node instanceof Var) {
+            return statement.reaching.get(((Var) node).token.value).value;
+        } else if (node instanceof BinOp) {
+            BinOp binOp = (BinOp) node;
+            int left = evaluate(binOp.left, statement);
+            int right = evaluate(binOp.right, statement);
+            if (binOp.op.type == TokenType.PLUS) {
+                return left + right;
+            } else if (binOp.op.type == TokenType.MINUS) {
+                return left - right;
+            } else if (binOp.op.type == TokenType.MUL) {
+                return left * right;
+            }
+            throw new RuntimeException("Invalid operator");
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            int value = evaluate(unaryOp.expr, statement);
+            return unaryOp.op.type == TokenType.MINUS ? -value : value;
+        }
+        throw new RuntimeException("Invalid node type");
+    }
+
+    // Prints variables whose final value differs from before, and variables no longer assigned
+    private void printChanges(Map<String, Integer> before, PrintStream out) {
+        Map<String, Integer> after = getVariables();
+        Map<String, Integer> changed = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : after.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        printVariables(changed, out);
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name)) {
+                out.println(name + " is no longer assigned");
+            }
+        }
+        out.println("(" + lastExecutedCount + " of " + statements.size() + " statements executed)");
+    }
+
+    // Prints variables in the same order as Interpreter.interpret
+    private void printVariables(Map<String, Integer> variables, PrintStream out) {
+        SymbolTable symbolTable = new SymbolTable();
+        for (Map.Entry<String, Integer> entry : variables.entrySet()) {
+            symbolTable.define(entry.getKey(), entry.getValue());
+        }
+        VariableWriter.write(symbolTable, out);
+    }
+
+    // Formats statement back to source text, with parentheses only where precedence needs them
+    private static String format(AST node) {
+        if (node instanceof Assign) {
+            return ((Assign) node).left.token.value + " = " + format(((Assign) node).right) + ";";
+        } else if (node instanceof Num) {
+            return ((Num) node).token.value;
+        } else if (node instanceof Var) {
+            return ((Var) node).token.value;
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            String operand = format(unaryOp.expr);
+            return unaryOp.op.value + (unaryOp.expr instanceof BinOp ? "(" + operand + ")" : operand);
+        }
+        BinOp binOp = (BinOp) node;
+        boolean product = binOp.op.type == TokenType.MUL;
+        String left = format(binOp.left);
+        String right = format(binOp.right);
+        if (product && isSum(binOp.left)) {
+            left = "(" + left + ")";
+        }
+        // Operators are left-associative, so a right operand of the same precedence needs parentheses
+        if (isSum(binOp.right) || (product && binOp.right instanceof BinOp)) {
+            right = "(" + right + ")";
+        }
+        return left + " " + binOp.op.value + " " + right;
+    }
+
+    private static boolean isSum(AST node) {
+        return node instanceof BinOp && ((BinOp) node).op.type != TokenType.MUL;
+    }
+}
@@ -0,0 +1,258 @@
+package interpreter;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Interpreter state saved to disk: values of all frame slots and number of top-level statements already run.
+// File layout, little-endian: magic, format version, SHA-256 of source, position, slot count, names length,
+// CRC32 of every other byte of the file, padding up to a 64-byte header, slot values, then length-prefixed
+// UTF-8 slot names. Values sit at a fixed aligned offset, so a resumed run uses them in place through a mapping
+class Snapshot {
+    private static final int MAGIC = 0x534E4150;  // "SNAP"
+    // Bumped whenever the layout changes meaning, which makes older files invalid
+    private static final int FORMAT_VERSION = 2;
+    private static final int HASH_LENGTH = 32;
+    private static final int CHECKSUM_OFFSET = 56;
+    static final int HEADER_LENGTH = 64;
+
+    final byte[] hash;  // SHA-256 of the program source
+    final long position;  // Number of top-level statements already run
+    final IntBuffer frame;  // Slot values, backed by a private copy-on-write mapping of the file
+
+    private Snapshot(byte[] hash, long position, IntBuffer frame) {
+        this.hash = hash;
+        this.position = position;
+        this.frame = frame;
+    }
+
+    // Maps snapshot file. Writes to the frame stay private to this process and never reach the file, pages are
+    // only copied when they are first written, but the channel must still be opened for writing to map it that
+    // way. Slot names must match those of the analyzed program
+    static Snapshot open(Path file, SemanticAnalyzer analyzer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE) {
+                throw invalid(file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw invalid(file);
+            }
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            long position = buffer.getLong();
+            int slotCount = buffer.getInt();
+            int namesLength = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (position < 0 || slotCount != analyzer.getSlotCount()
+                    || (long) HEADER_LENGTH + 4L * slotCount + namesLength != channel.size()
+                    || checksum(buffer) != checksum) {
+                throw invalid(file);
+            }
+            buffer.position(HEADER_LENGTH + 4 * slotCount);
+            for (int slot = 0; slot < slotCount; slot++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                if (!analyzer.getSlotName(slot).equals(new String(name, StandardCharsets.UTF_8))) {
+                    throw invalid(file);
+                }
+            }
+            IntBuffer frame = buffer.slice(HEADER_LENGTH, 4 * slotCount).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            return new Snapshot(hash, position, frame);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw invalid(file);
+        }
+    }
+
+    // Writes state to a temporary file through a mapping, then moves it into place, so a run killed while
+    // writing leaves the previous snapshot intact
+    static void write(Path file, byte[] hash, long position, IntBuffer frame, SemanticAnalyzer analyzer)
+            throws IOException {
+        int slotCount = analyzer.getSlotCount();
+        byte[][] names = new byte[slotCount][];
+        int namesLength = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            names[slot] = analyzer.getSlotName(slot).getBytes(StandardCharsets.UTF_8);
+            namesLength += 4 + names[slot].length;
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_LENGTH + 4L * slotCount + namesLength);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC);
+                buffer.putInt(FORMAT_VERSION);
+                buffer.put(hash);
+                buffer.putLong(position);
+                buffer.putInt(slotCount);
+                buffer.putInt(namesLength);
+                buffer.position(HEADER_LENGTH);
+                // One bulk copy of the frame, whether it lives on the heap or in an earlier snapshot's mapping
+                buffer.asIntBuffer().put(frame.duplicate().clear().limit(slotCount));
+                buffer.position(HEADER_LENGTH + 4 * slotCount);
+                for (byte[] name : names) {
+                    buffer.putInt(name.length);
+                    buffer.put(name);
+                }
+                buffer.putInt(CHECKSUM_OFFSET, checksum(buffer));
+                buffer.force();
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Returns CRC32 of the header before the checksum and of everything after the header. Reads the whole file
+    // once, but only pages the resumed program writes are ever copied
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(CHECKSUM_OFFSET));
+        crc.update(buffer.duplicate().position(HEADER_LENGTH).limit(buffer.capacity()));
+        return (int) crc.getValue();
+    }
+
+    private static InterpreterException invalid(Path file) {
+        return new InterpreterException("Error: Invalid snapshot " + file);
+    }
+}
+
+// Runs the top-level statements of an analyzed program one by one over a frame held in an IntBuffer, so that
+// execution can stop after any statement, be saved to a Snapshot, and later continue from it. A resumed frame is
+// the snapshot file mapped copy-on-write, so resuming copies no more of the file than the program writes
+public class ResumableInterpreter {
+    private final Compound program;  // Root of analyzed AST
+    private final SemanticAnalyzer analyzer;  // Analyzer that visited program and assigned slots
+    private final byte[] hash;  // SHA-256 of source, ties snapshots to the program they came from
+    private IntBuffer frame;  // Variable values, indexed by slot
+    private long position = 0;  // Number of top-level statements already run
+    private Path snapshotFile;  // Where state is saved, none when null
+    private long snapshotInterval = 0;  // Statements between snapshots, 0 saves only at the end
+    private int snapshotCount = 0;
+
+    // Constructor takes in program analyzed by analyzer and its source text
+    public ResumableInterpreter(AST program, SemanticAnalyzer analyzer, String source) {
+        this.program = (Compound) program;
+        this.analyzer = analyzer;
+        this.hash = ProgramCache.hash(source);
+        this.frame = IntBuffer.allocate(analyzer.getSlotCount());
+    }
+
+    // Saves state to file every interval statements and once all statements have run
+    public void setSnapshot(Path file, long interval) {
+        this.snapshotFile = file;
+        this.snapshotInterval = interval;
+    }
+
+    // Continues from state saved in file. The file must come from the same source text
+    public void resume(Path file) throws IOException {
+        Snapshot snapshot = Snapshot.open(file, analyzer);
+        if (!Arrays.equals(snapshot.hash, hash) || snapshot.position > program.children.size()) {
+            throw new InterpreterException("Error: Snapshot " + file + " was taken of a different program");
+        }
+        frame = snapshot.frame;
+        position = snapshot.position;
+    }
+
+    // Runs at most steps statements from the current position. Returns true once every statement has run
+    public boolean run(long steps) throws IOException {
+        long end = position + Math.min(program.children.size() - position, Math.max(0, steps));
+        while (position < end) {
+            execute(program.children.get((int) position));
+            position++;
+            if (snapshotFile != null && snapshotInterval > 0 && position % snapshotInterval == 0) {
+                save();
+            }
+        }
+        boolean done = position == program.children.size();
+        if (done && snapshotFile != null && (snapshotInterval <= 0 || position % snapshotInterval != 0)) {
+            save();
+        }
+        return done;
+    }
+
+    // Writes state to the snapshot file
+    public void save() throws IOException {
+        Snapshot.write(snapshotFile, hash, position, frame, analyzer);
+        snapshotCount++;
+    }
+
+    // Returns number of top-level statements already run
+    public long getPosition() {
+        return position;
+    }
+
+    // Returns number of snapshots written
+    public int getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    // Runs remaining statements and prints out values of all variables
+    public void interpret() throws IOException {
+        run(Long.MAX_VALUE);
+        VariableWriter.write(getSymbolTable(), System.out);
+    }
+
+    // Builds name/value table from slots
+    public SymbolTable getSymbolTable() {
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < analyzer.getSlotCount(); slot++) {
+            symbolTable.define(analyzer.getSlotName(slot), frame.get(slot));
+        }
+        return symbolTable;
+    }
+
+    // Runs one top-level statement. Empty statements only advance the position
+    private void execute(AST statement) {
+        if (statement instanceof Assign) {
+            Assign assign = (Assign) statement;
+            frame.put(assign.left.slot, evaluate(assign.right));
+        }
+    }
+
+    private int evaluate(AST node) {
+        if (node instanceof Num) {
+            return ((Num) node).value;
+        } else if (node instanceof Var) {
+            return frame.get(((Var) node).slot);
+        } else if (node instanceof BinOp) {
+            BinOp binOp = (BinOp) node;
+            int left = evaluate(binOp.left);
+            int right = evaluate(binOp.right);
+            if (binOp.op.type == TokenType.PLUS) {
+                return left + right;
+            } else if (binOp.op.type == TokenType.MINUS) {
+                return left - right;
+            } else if (binOp.op.type == TokenType.MUL) {
+                return left * right;
+            }
+            throw new RuntimeException("Invalid operator");
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            int value = evaluate(unaryOp.expr);
+            return unaryOp.op.type == TokenType.MINUS ? -value : value;
+        }
+        throw new RuntimeException("Invalid node type");
+    }
+}
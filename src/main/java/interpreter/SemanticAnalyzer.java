@@ -0,0 +1,229 @@
+package interpreter;
+
+import java.util.*;
+
+// The symbol table is a map from variable names to their values. Values that fit in an int are kept unboxed in
+// an int array. Wider values from WideInterpreter (Long or BigInteger) go to a parallel array created on first use
+class SymbolTable {
+    // Index of each variable in the value arrays
+    private Map<String, Integer> symbols = new HashMap<>();
+    private int[] values = new int[16];
+    private Number[] wideValues;  // A non-null entry replaces the int at the same index
+
+    // Adds new variable to symbol table with its value
+    public void define(String name, int value) {
+        int index = indexOf(name);
+        values[index] = value;
+        if (wideValues != null) {
+            wideValues[index] = null;
+        }
+    }
+
+    // Adds new variable with a value of any width. Values that fit in an int are stored like define(name, int)
+    public void define(String name, Number value) {
+        if (value instanceof Integer) {
+            define(name, value.intValue());
+            return;
+        }
+        int index = indexOf(name);
+        if (wideValues == null) {
+            wideValues = new Number[values.length];
+        }
+        wideValues[index] = value;
+    }
+
+    // Returns value of variable from symbol table. Throws ArithmeticException if it doesn't fit in an int
+    public Integer lookup(String name) {
+        Number value = lookupNumber(name);
+        if (value != null && !(value instanceof Integer)) {
+            throw new ArithmeticException("Error: Value of " + name + " doesn't fit in an int");
+        }
+        return (Integer) value;
+    }
+
+    // Returns value of variable as Integer, Long or BigInteger, whichever is narrowest
+    public Number lookupNumber(String name) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.symbolLookup();
+        }
+        Integer index = symbols.get(name);
+        if (index == null) {
+            return null;
+        }
+        if (wideValues != null && wideValues[index] != null) {
+            return wideValues[index];
+        }
+        return values[index];
+    }
+
+    public Collection<String> getAllVariableNames() {
+        return symbols.keySet();
+    }
+
+    // Appends value of variable as decimal text, without boxing values that fit in an int
+    void appendValue(String name, StringBuilder out) {
+        int index = symbols.get(name);
+        if (wideValues != null && wideValues[index] != null) {
+            out.append(wideValues[index]);
+        } else {
+            out.append(values[index]);
+        }
+    }
+
+    // Returns index of variable, adding it if it is new
+    private int indexOf(String name) {
+        Integer index = symbols.get(name);
+        if (index != null) {
+            return index;
+        }
+        index = symbols.size();
+        if (index == values.length) {
+            values = Arrays.copyOf(values, index * 2);
+            if (wideValues != null) {
+                wideValues = Arrays.copyOf(wideValues, index * 2);
+            }
+        }
+        symbols.put(name, index);
+        return index;
+    }
+}
+
+// Semantic Analyzer that will check AST for semantic correctness
+public class SemanticAnalyzer {
+    // Frame slot of every defined variable, handed out densely in order of first assignment
+    private Map<String, Integer> slots = new HashMap<>();
+    // Variable name of each slot, used to rebuild name/value output
+    private List<String> slotNames = new ArrayList<>();
+
+    // Entry point for Semantic Analyzer. Dispatches node to appropriate method
+    public void visit(AST node) throws SemanticAnalyzerException {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.analyzerVisit();
+        }
+        if (node instanceof Compound) {
+            visitCompound((Compound) node);
+        } else if (node instanceof Assign) {
+            visitAssign((Assign) node);
+        } else if (node instanceof Var) {
+            visitVar((Var) node);
+        } else if (node instanceof BinOp) {
+            visitBinOp((BinOp) node);
+        } else if (node instanceof UnaryOp) {
+            visitUnaryOp((UnaryOp) node);
+        } else if (node instanceof Num) {
+            visitNum((Num) node);
+        } else if (node instanceof NoOp) {
+            visitNoOp((NoOp) node);
+        }
+    }
+
+    // Called when Compound node present. Visits all children of this node
+    private void visitCompound(Compound node) throws SemanticAnalyzerException {
+        for (AST child : node.children) {
+            visit(child);
+        }
+    }
+
+    // Called when Assign node present. Visits right side of assignment first, since it runs before the
+    // variable is written, then gives the variable a slot if it has none and records it on the target
+    private void visitAssign(Assign node) throws SemanticAnalyzerException {
+        visit(node.right);
+        String varName = node.left.token.value;
+        if (Instrumentation.ENABLED) {
+            Instrumentation.symbolLookup();
+        }
+        Integer slot = slots.get(varName);
+        if (slot == null) {
+            slot = slotNames.size();  // Assume all variables are integers
+            slots.put(varName, slot);
+            slotNames.add(varName);
+        }
+        node.left.slot = slot;
+    }
+
+    // Gives variable a slot before the program is visited, so reads of it count as defined. Used for variables
+    // bound from outside, e.g. input columns. Returns its slot
+    public int defineInput(String varName) {
+        Integer slot = slots.get(varName);
+        if (slot == null) {
+            slot = slotNames.size();
+            slots.put(varName, slot);
+            slotNames.add(varName);
+        }
+        return slot;
+    }
+
+    // Called when Var node present. Checks if variable has been defined, if not, throws error. Otherwise records its slot
+    private void visitVar(Var node) throws SemanticAnalyzerException {
+        String varName = node.token.value;
+        if (Instrumentation.ENABLED) {
+            Instrumentation.symbolLookup();
+        }
+        Integer slot = slots.get(varName);
+        if (slot == null) {
+            throw new SemanticAnalyzerException("Error: Variable not found " + varName);
+        }
+        node.slot = slot;
+    }
+
+    // Called when BinOp node present. Visits both operands
+    private void visitBinOp(BinOp node) throws SemanticAnalyzerException {
+        visit(node.left);
+        visit(node.right);
+    }
+
+    // Called when UnaryOp node present. Visits operand
+    private void visitUnaryOp(UnaryOp node) throws SemanticAnalyzerException {
+        visit(node.expr);
+    }
+
+    // Called when Num node present.
+    private void visitNum(Num node) {
+    }
+
+    // Called when NoOp node present.
+    private void visitNoOp(NoOp node) {
+    }
+
+    // Entry point for programs held in an AstArena. Checks that every variable is assigned before it is read
+    public void visit(AstArena arena) throws SemanticAnalyzerException {
+        boolean[] defined = new boolean[arena.symbols.size()];
+        for (int i = 0; i < arena.statementCount; i++) {
+            int statement = arena.statements[i];
+            visitArenaExpr(arena, arena.left[statement], defined);
+            defined[arena.values[statement]] = true;
+        }
+
+        // Symbol ids are handed out in order of first appearance, and in a valid program that is always the
+        // first assignment, so symbol ids double as frame slots
+        for (int id = slotNames.size(); id < arena.symbols.size(); id++) {
+            slots.put(arena.symbols.name(id), id);
+            slotNames.add(arena.symbols.name(id));
+        }
+    }
+
+    // Checks variable reads of an arena expression
+    private void visitArenaExpr(AstArena arena, int node, boolean[] defined) throws SemanticAnalyzerException {
+        byte kind = arena.kinds[node];
+        if (kind == AstArena.VAR) {
+            if (!defined[arena.values[node]]) {
+                throw new SemanticAnalyzerException("Error: Variable not found " + arena.symbols.name(arena.values[node]));
+            }
+        } else if (kind == AstArena.BINOP) {
+            visitArenaExpr(arena, arena.left[node], defined);
+            visitArenaExpr(arena, arena.right[node], defined);
+        } else if (kind == AstArena.UNARYOP) {
+            visitArenaExpr(arena, arena.left[node], defined);
+        }
+    }
+
+    // Returns number of frame slots the analyzed program needs
+    public int getSlotCount() {
+        return slotNames.size();
+    }
+
+    // Returns variable name held in given slot
+    public String getSlotName(int slot) {
+        return slotNames.get(slot);
+    }
+}
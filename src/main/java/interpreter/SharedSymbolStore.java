@@ -0,0 +1,153 @@
+package interpreter;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One namespace of global variables for programs running in parallel. Cells live in fixed-size chunks of
+// primitive ints that never move, so growing the store never blocks readers. Each cell is guarded by one of 64
+// striped locks, chosen by the low bits of its slot. A statement locks the stripes of all cells it touches, in
+// stripe order so statements can't deadlock, and a snapshot takes every stripe, so it sees each statement
+// either fully applied or not at all
+public class SharedSymbolStore implements SymbolStore {
+    private static final int STRIPES = 64;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+    // Chunks are only ever added. A slot is published through slots after its chunk exists, so a reader that
+    // got the slot always finds it in these arrays
+    private volatile int[][] values = new int[0][];
+    private volatile boolean[][] defined = new boolean[0][];
+    private volatile String[][] names = new String[0][];
+    private volatile int count = 0;
+
+    public SharedSymbolStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public int find(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public int slot(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : add(name);
+    }
+
+    // Caller holds the cell's stripe
+    @Override
+    public boolean isDefined(int slot) {
+        return defined[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)];
+    }
+
+    // Caller holds the cell's stripe
+    @Override
+    public int get(int slot) {
+        return values[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)];
+    }
+
+    // Caller holds the cell's stripe
+    @Override
+    public void set(int slot, int value) {
+        values[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)] = value;
+        defined[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)] = true;
+    }
+
+    // Locks each stripe at most once, lowest first. The token is the bit set of stripes taken
+    @Override
+    public long lock(int[] slotsToLock, int slotCount) {
+        long mask = 0;
+        for (int i = 0; i < slotCount; i++) {
+            mask |= 1L << (slotsToLock[i] & (STRIPES - 1));
+        }
+        lockStripes(mask);
+        return mask;
+    }
+
+    @Override
+    public void unlock(long token) {
+        for (long rest = token; rest != 0; rest &= rest - 1) {
+            stripes[Long.numberOfTrailingZeros(rest)].unlock();
+        }
+    }
+
+    // Holds every stripe while copying, so no statement is half applied
+    @Override
+    public SymbolTable snapshot() {
+        lockStripes(-1L);
+        try {
+            SymbolTable symbolTable = new SymbolTable();
+            // add publishes a new chunk before it bumps count, so reading count first guarantees the chunk
+            // arrays read next cover every slot below it
+            int size = count;
+            int[][] valueChunks = values;
+            boolean[][] definedChunks = defined;
+            String[][] nameChunks = names;
+            for (int slot = 0; slot < size; slot++) {
+                int chunk = slot >>> CHUNK_BITS;
+                int index = slot & (CHUNK_SIZE - 1);
+                if (definedChunks[chunk][index]) {
+                    symbolTable.define(nameChunks[chunk][index], valueChunks[chunk][index]);
+                }
+            }
+            return symbolTable;
+        } finally {
+            unlock(-1L);
+        }
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public long sizeInBytes() {
+        long bytes = 0;
+        int size = count;
+        String[][] nameChunks = names;
+        for (int slot = 0; slot < size; slot++) {
+            bytes += 4 + 1 + 8 + 48 + 2L * nameChunks[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)].length();
+        }
+        return bytes;
+    }
+
+    private void lockStripes(long mask) {
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            stripes[Long.numberOfTrailingZeros(rest)].lock();
+        }
+    }
+
+    // Gives name the next slot, adding a chunk when the last one is full. Names are added under the store's own
+    // monitor, never under a stripe, so adding never waits for a statement
+    private synchronized int add(String name) {
+        Integer existing = slots.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = count;
+        int chunk = slot >>> CHUNK_BITS;
+        if (chunk == values.length) {
+            int[][] valueChunks = Arrays.copyOf(values, chunk + 1);
+            boolean[][] definedChunks = Arrays.copyOf(defined, chunk + 1);
+            String[][] nameChunks = Arrays.copyOf(names, chunk + 1);
+            valueChunks[chunk] = new int[CHUNK_SIZE];
+            definedChunks[chunk] = new boolean[CHUNK_SIZE];
+            nameChunks[chunk] = new String[CHUNK_SIZE];
+            values = valueChunks;
+            defined = definedChunks;
+            names = nameChunks;
+        }
+        names[chunk][slot & (CHUNK_SIZE - 1)] = name;
+        count = slot + 1;
+        slots.put(name, slot);
+        return slot;
+    }
+}
@@ -0,0 +1,40 @@
+package interpreter;
+
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Runs programs of any size in bounded memory. Lexes from a Reader through a fixed buffer, then parses,
+// checks and executes one statement at a time and drops its AST before reading the next one
+public class StreamingInterpreter {
+    private Reader reader;  // Program text
+
+    // Constructor takes in reader to pull program text from
+    public StreamingInterpreter(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Constructor takes in channel holding UTF-8 program text, e.g. a FileChannel
+    public StreamingInterpreter(ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    // Executes whole input without printing. Returned interpreter holds the final variable values
+    public Interpreter execute() {
+        Parser parser = new Parser(new Lexer(reader));
+        Interpreter interpreter = new Interpreter(new SemanticAnalyzer());
+
+        // Each statement becomes garbage as soon as it has run, only the frame and slot table stay alive
+        AST statement;
+        while ((statement = parser.nextStatement()) != null) {
+            interpreter.executeStatement(statement);
+        }
+        return interpreter;
+    }
+
+    // Entry point for streaming interpretation. Executes whole input and prints out values of all variables
+    public void interpret() {
+        execute().printVariables();
+    }
+}
@@ -0,0 +1,117 @@
+package interpreter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Variable values of running programs, kept in int cells addressed by slot. A cell gets its slot when its name is
+// first seen and is defined once it is first written; only defined cells can be read and show up in snapshots.
+// Reads and writes of one statement go between lock and unlock of the slots it touches, so a store shared by
+// programs on several threads runs every statement as one atomic read-modify-write
+interface SymbolStore {
+    // Returns slot of variable, or -1 if it has none
+    int find(String name);
+
+    // Returns slot of variable, giving it a new undefined cell if it has none
+    int slot(String name);
+
+    boolean isDefined(int slot);
+
+    int get(int slot);
+
+    // Writes value and defines the cell
+    void set(int slot, int value);
+
+    // Locks cells of the first count slots and returns the token to unlock them with
+    long lock(int[] slots, int count);
+
+    void unlock(long token);
+
+    // Returns every defined variable as it was at one point in time
+    SymbolTable snapshot();
+
+    // Whether other programs may use this store at the same time
+    boolean isShared();
+
+    // Returns bytes held by the cells and names of its variables. Spare capacity isn't counted, so a program is
+    // charged for what it defined, not for how the store grows
+    long sizeInBytes();
+}
+
+// Store of one program on one thread, plain arrays without any synchronization. Cells get slots only when
+// written, so every slot it hands out is defined
+class LocalSymbolStore implements SymbolStore {
+    private Map<String, Integer> slots = new HashMap<>();
+    private String[] names = new String[16];
+    private int[] values = new int[16];
+    private int count = 0;
+
+    @Override
+    public int find(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public int slot(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot;
+        }
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+            names = Arrays.copyOf(names, count * 2);
+        }
+        slots.put(name, count);
+        names[count] = name;
+        return count++;
+    }
+
+    @Override
+    public boolean isDefined(int slot) {
+        return true;
+    }
+
+    @Override
+    public int get(int slot) {
+        return values[slot];
+    }
+
+    @Override
+    public void set(int slot, int value) {
+        values[slot] = value;
+    }
+
+    @Override
+    public long lock(int[] slots, int count) {
+        return 0;
+    }
+
+    @Override
+    public void unlock(long token) {
+    }
+
+    @Override
+    public SymbolTable snapshot() {
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < count; slot++) {
+            symbolTable.define(names[slot], values[slot]);
+        }
+        return symbolTable;
+    }
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    // Every name is counted with its map entry
+    @Override
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (int slot = 0; slot < count; slot++) {
+            bytes += 4 + 8 + 48 + 2L * names[slot].length();
+        }
+        return bytes;
+    }
+}
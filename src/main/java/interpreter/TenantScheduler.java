@@ -0,0 +1,390 @@
+package interpreter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+// One program submitted to TenantScheduler. Its source is parsed on the first slice it gets, so parsing runs on a
+// carrier thread and is charged to the program's own CPU budget. Parsing is not divided into quanta, a long
+// program holds its carrier until it is parsed
+class ScheduledProgram {
+    final String id;
+    final Tenant tenant;
+    final long submitNanos;
+    // Variables once the program ran, the error if it failed, cancelled by cancel
+    final CompletableFuture<SymbolTable> result = new CompletableFuture<>();
+
+    String source;  // Dropped once parsed
+    IterativeInterpreter interpreter;  // Created on the first slice
+    long steps = 0;  // Nodes evaluated so far
+    long cpuNanos = 0;
+
+    ScheduledProgram(String id, Tenant tenant, String source) {
+        this.id = id;
+        this.tenant = tenant;
+        this.source = source;
+        this.submitNanos = System.nanoTime();
+    }
+
+    // Stops program before its next slice. A slice already running finishes its quantum first
+    public boolean cancel() {
+        return result.cancel(false);
+    }
+}
+
+// Run queue and counters of one tenant. Guarded by the scheduler's lock
+class Tenant {
+    final String name;
+    final ArrayDeque<ScheduledProgram> runnable = new ArrayDeque<>();
+    boolean ready = false;  // In the scheduler's ready queue
+
+    int submitted = 0;
+    int completed = 0;
+    int failed = 0;
+    int cancelled = 0;
+    long steps = 0;
+    long cpuNanos = 0;
+    long slices = 0;
+    // Time from submit to finish of every finished program, in nanoseconds
+    long[] latencies = new long[64];
+    int finished = 0;
+    long firstSubmitNanos = 0;
+    long lastFinishNanos = 0;
+
+    Tenant(String name) {
+        this.name = name;
+    }
+
+    void recordLatency(long now, long submitNanos) {
+        if (finished == latencies.length) {
+            latencies = Arrays.copyOf(latencies, finished * 2);
+        }
+        latencies[finished++] = now - submitNanos;
+        lastFinishNanos = now;
+    }
+}
+
+// Interleaves programs of many tenants on a fixed set of carrier threads. Programs run on IterativeInterpreter,
+// which can stop after any node, so each slice evaluates at most quantum nodes and then the program goes to the
+// back of its tenant's queue. Tenants take turns, one slice each, so a tenant with many programs gets the same
+// share of the carriers as a tenant with one. A program fails once it exceeds its step, CPU time or memory budget.
+// Programs keep their variables to themselves unless a shared store is set, then all of them use its namespace
+public class TenantScheduler {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean THREAD_CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+    private final long quantum;
+    private long maxSteps = Long.MAX_VALUE;
+    private long maxCpuNanos = Long.MAX_VALUE;
+    private long maxMemoryBytes = Long.MAX_VALUE;
+    private SymbolStore sharedStore;  // Null when every program has its own variables
+
+    private final Thread[] carriers;
+    private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+    // Tenants with runnable programs, in turn order. Guarded by this
+    private final ArrayDeque<Tenant> ready = new ArrayDeque<>();
+    private boolean shutdown = false;
+    private long startNanos;
+    private long endNanos;
+
+    // Constructor takes in number of carrier threads and most nodes a program evaluates per slice
+    public TenantScheduler(int carrierCount, long quantum) {
+        if (carrierCount < 1) {
+            throw new IllegalArgumentException("Error: Carriers must be at least 1");
+        }
+        if (quantum < 1) {
+            throw new IllegalArgumentException("Error: Quantum must be at least 1");
+        }
+        this.quantum = quantum;
+        this.startNanos = System.nanoTime();
+        carriers = new Thread[carrierCount];
+        for (int i = 0; i < carrierCount; i++) {
+            carriers[i] = new Thread(this::carry, "tenant-carrier-" + i);
+            carriers[i].setDaemon(true);
+            carriers[i].start();
+        }
+    }
+
+    // Sets most nodes one program may evaluate
+    public void setMaxSteps(long maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    // Sets most CPU time one program may use, parsing included
+    public void setMaxCpuNanos(long maxCpuNanos) {
+        this.maxCpuNanos = maxCpuNanos;
+    }
+
+    // Sets most bytes the variables and evaluation stacks of one program may hold
+    public void setMaxMemoryBytes(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    // Makes programs read and write variables of store, and report snapshots of it. Set before submitting
+    public void setSharedStore(SymbolStore sharedStore) {
+        this.sharedStore = sharedStore;
+    }
+
+    // Queues program of tenant. Its result completes with the variables, or with the error the program failed with
+    public synchronized ScheduledProgram submit(String tenantName, String id, String source) {
+        if (shutdown) {
+            throw new IllegalStateException("Error: Scheduler is shut down");
+        }
+        Tenant tenant = tenant(tenantName);
+        ScheduledProgram program = new ScheduledProgram(id, tenant, source);
+        tenant.submitted++;
+        enqueue(program);
+        return program;
+    }
+
+    // Runs every file as one program of the tenant named by its directory, and writes results in input order
+    public void runFiles(List<String> files, PrintStream out) throws InterruptedException {
+        List<ScheduledProgram> programs = new ArrayList<>();
+        for (String file : files) {
+            Path parent = Paths.get(file).toAbsolutePath().getParent();
+            String tenantName = parent != null && parent.getFileName() != null ? parent.getFileName().toString() : "default";
+            try {
+                String source = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+                programs.add(submit(tenantName, file, source));
+            } catch (IOException e) {
+                programs.add(reject(tenantName, file, "Error: Cannot read " + e.getMessage()));
+            }
+        }
+        write(programs, out);
+    }
+
+    // Runs every non-empty line of NDJSON input as one program, and writes results in input order. Lines without a
+    // "tenant" belong to tenant "default", lines without an "id" are named by line number
+    public void runNdjson(BufferedReader in, PrintStream out) throws IOException, InterruptedException {
+        List<ScheduledProgram> programs = new ArrayList<>();
+        String text;
+        int lineNumber = 0;
+        while ((text = in.readLine()) != null) {
+            lineNumber++;
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            String number = Integer.toString(lineNumber);
+            try {
+                BatchInputLine input = new BatchInputLine(text);
+                programs.add(submit(input.tenant != null ? input.tenant : "default",
+                        input.id != null ? input.id : number, input.source));
+            } catch (IllegalArgumentException e) {
+                programs.add(reject("default", number, e.getMessage()));
+            }
+        }
+        write(programs, out);
+    }
+
+    // Lets queued programs finish, then stops the carriers
+    public void shutdown() throws InterruptedException {
+        synchronized (this) {
+            shutdown = true;
+            notifyAll();
+        }
+        for (Thread carrier : carriers) {
+            carrier.join();
+        }
+        endNanos = System.nanoTime();
+    }
+
+    // Prints programs, budget use, latency percentiles and throughput of every tenant
+    public synchronized void printStats(PrintStream err) {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        int total = 0;
+        for (Tenant tenant : tenants.values()) {
+            total += tenant.submitted;
+        }
+        err.println("Scheduler: " + total + " programs of " + tenants.size() + " tenants in "
+                + String.format("%.3f", (end - startNanos) / 1e9) + " s, " + carriers.length + " carriers, quantum "
+                + quantum + " steps");
+        for (Tenant tenant : tenants.values()) {
+            long[] sorted = Arrays.copyOf(tenant.latencies, tenant.finished);
+            Arrays.sort(sorted);
+            double seconds = Math.max((tenant.lastFinishNanos - tenant.firstSubmitNanos) / 1e9, 1e-9);
+            err.println("Tenant " + tenant.name + ": " + tenant.submitted + " programs (" + tenant.completed
+                    + " completed, " + tenant.failed + " failed, " + tenant.cancelled + " cancelled), " + tenant.steps
+                    + " steps in " + tenant.slices + " slices, " + BatchRunner.micros(tenant.cpuNanos) + " us CPU, "
+                    + String.format("%.0f", tenant.completed / seconds) + " programs/s");
+            err.println("  Latency: p50 " + BatchRunner.micros(BatchRunner.percentile(sorted, 50)) + " us, p99 "
+                    + BatchRunner.micros(BatchRunner.percentile(sorted, 99)) + " us, max "
+                    + BatchRunner.micros(sorted.length == 0 ? 0 : sorted[sorted.length - 1]) + " us");
+        }
+    }
+
+    // Returns number of programs of tenant that completed, failed and were cancelled, in that order
+    public synchronized int[] getCounts(String tenantName) {
+        Tenant tenant = tenants.get(tenantName);
+        return tenant == null ? new int[3] : new int[] {tenant.completed, tenant.failed, tenant.cancelled};
+    }
+
+    // Returns number of slices programs of tenant got so far
+    public synchronized long getSliceCount(String tenantName) {
+        Tenant tenant = tenants.get(tenantName);
+        return tenant == null ? 0 : tenant.slices;
+    }
+
+    private Tenant tenant(String name) {
+        Tenant tenant = tenants.get(name);
+        if (tenant == null) {
+            tenant = new Tenant(name);
+            tenant.firstSubmitNanos = System.nanoTime();
+            tenants.put(name, tenant);
+        }
+        return tenant;
+    }
+
+    // Records a program that failed before it could be queued
+    private synchronized ScheduledProgram reject(String tenantName, String id, String message) {
+        Tenant tenant = tenant(tenantName);
+        ScheduledProgram program = new ScheduledProgram(id, tenant, null);
+        tenant.submitted++;
+        tenant.failed++;
+        tenant.recordLatency(System.nanoTime(), program.submitNanos);
+        program.result.completeExceptionally(new InterpreterException(message));
+        return program;
+    }
+
+    // Writes result of every program in order, each as soon as it and the programs before it finished
+    private static void write(List<ScheduledProgram> programs, PrintStream out) throws InterruptedException {
+        for (ScheduledProgram program : programs) {
+            try {
+                out.println(BatchRunner.resultLine(program.id, program.result.get()));
+            } catch (CancellationException e) {
+                out.println(BatchRunner.errorLine(program.id, "Error: Program was cancelled"));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                out.println(BatchRunner.errorLine(program.id, cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+            }
+        }
+        out.flush();
+    }
+
+    // Puts program at the back of its tenant's queue, and the tenant at the back of the ready queue if it has no
+    // turn pending
+    private void enqueue(ScheduledProgram program) {
+        Tenant tenant = program.tenant;
+        tenant.runnable.add(program);
+        if (!tenant.ready) {
+            tenant.ready = true;
+            ready.add(tenant);
+            notify();
+        }
+    }
+
+    // Carrier loop: takes the next tenant's next program, runs one slice of it outside the lock, then queues it
+    // again or records how it finished
+    private void carry() {
+        while (true) {
+            ScheduledProgram program;
+            synchronized (this) {
+                while (ready.isEmpty() && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (ready.isEmpty()) {
+                    return;
+                }
+                Tenant tenant = ready.poll();
+                program = tenant.runnable.poll();
+                if (tenant.runnable.isEmpty()) {
+                    tenant.ready = false;
+                } else {
+                    ready.add(tenant);
+                }
+            }
+            long steps = program.steps;
+            boolean finished = slice(program);
+            synchronized (this) {
+                Tenant tenant = program.tenant;
+                tenant.slices++;
+                tenant.steps += program.steps - steps;
+                if (!finished) {
+                    enqueue(program);
+                    continue;
+                }
+                tenant.cpuNanos += program.cpuNanos;
+                if (program.result.isCancelled()) {
+                    tenant.cancelled++;
+                } else if (program.result.isCompletedExceptionally()) {
+                    tenant.failed++;
+                } else {
+                    tenant.completed++;
+                }
+                tenant.recordLatency(System.nanoTime(), program.submitNanos);
+            }
+        }
+    }
+
+    // Runs one quantum of program and checks its budgets. Returns true once its result is complete
+    private boolean slice(ScheduledProgram program) {
+        if (program.result.isDone()) {
+            return true;  // Cancelled while queued
+        }
+        long start = cpuTime();
+        RuntimeException failure = null;
+        boolean done = false;
+        try {
+            if (program.interpreter == null) {
+                Parser parser = new Parser(new Lexer(program.source));
+                parser.setIterative(true);
+                AST tree = parser.program();
+                program.interpreter = sharedStore != null ? new IterativeInterpreter(tree, sharedStore)
+                        : new IterativeInterpreter(tree);
+                program.source = null;
+            }
+            done = program.interpreter.run(Math.min(quantum, maxSteps - program.interpreter.getStepCount()));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        program.cpuNanos += cpuTime() - start;
+        IterativeInterpreter interpreter = program.interpreter;
+        if (failure == null) {
+            program.steps = interpreter.getStepCount();
+            failure = checkBudgets(interpreter, program.cpuNanos, done);
+        }
+        if (failure != null) {
+            program.result.completeExceptionally(failure);
+        } else if (done) {
+            program.result.complete(interpreter.getSymbolTable());
+        } else if (!program.result.isDone()) {
+            return false;
+        }
+        program.interpreter = null;  // Finished, cancelled or failed, its state is no longer needed
+        return true;
+    }
+
+    // Returns error for the first budget program exceeded, null when it is within all of them
+    private InterpreterException checkBudgets(IterativeInterpreter interpreter, long cpuNanos, boolean done) {
+        if (interpreter.estimateMemory() > maxMemoryBytes) {
+            return new InterpreterException("Error: Program exceeded memory budget of " + maxMemoryBytes + " bytes");
+        } else if (!done && interpreter.getStepCount() >= maxSteps) {
+            return new InterpreterException("Error: Program exceeded step budget of " + maxSteps + " steps");
+        } else if (!done && cpuNanos > maxCpuNanos) {
+            return new InterpreterException("Error: Program exceeded CPU budget of " + maxCpuNanos / 1000000 + " ms");
+        }
+        return null;
+    }
+
+    private static long cpuTime() {
+        return THREAD_CPU_TIME ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
@@ -0,0 +1,7 @@
+package interpreter;
+
+// Receives final value of every variable of a CompiledProgram run, in slot order
+@FunctionalInterface
+public interface VariableSink {
+    void accept(String name, int value);
+}
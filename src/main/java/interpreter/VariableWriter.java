@@ -0,0 +1,49 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Writes every variable of a SymbolTable as "name = value" lines sorted by name, so output no longer depends on
+// HashMap order. Lines are formatted into one buffer and written in large blocks instead of one println each.
+// Temporaries RedundancyEliminator added aren't program variables and are left out
+class VariableWriter {
+    // Characters formatted before the buffer is encoded and written
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private VariableWriter() {
+    }
+
+    // Writes all variables to out and flushes it
+    static void write(SymbolTable symbolTable, PrintStream out) {
+        String[] names = symbolTable.getAllVariableNames().toArray(new String[0]);
+        Arrays.sort(names);
+        StringBuilder block = new StringBuilder(Math.min(BLOCK_SIZE + 256, 64 + names.length * 16));
+        String lineSeparator = System.lineSeparator();
+        try {
+            for (String name : names) {
+                if (name.startsWith(RedundancyEliminator.TEMP_PREFIX)) {
+                    continue;
+                }
+                block.append(name).append(" = ");
+                symbolTable.appendValue(name, block);
+                block.append(lineSeparator);
+                if (block.length() >= BLOCK_SIZE) {
+                    writeBlock(block, out);
+                }
+            }
+            writeBlock(block, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.flush();
+    }
+
+    private static void writeBlock(StringBuilder block, OutputStream out) throws IOException {
+        out.write(block.toString().getBytes(StandardCharsets.UTF_8));
+        block.setLength(0);
+    }
+}
@@ -0,0 +1,77 @@
+package interpreter;
+
+// Stack-based virtual machine that executes Bytecode produced by BytecodeCompiler
+public class VirtualMachine {
+    private final Bytecode program;  // Program to execute
+    private final int[] frame;  // Variable values, indexed by slot
+
+    // Constructor takes in compiled program
+    public VirtualMachine(Bytecode program) {
+        this.program = program;
+        this.frame = new int[program.slotNames.length];
+    }
+
+    // Executes the program. Locals are copied out of fields so the loop works on registers
+    public void run() {
+        final int[] code = program.code;
+        final int[] constants = program.constants;
+        final int[] frame = this.frame;
+        final int[] stack = new int[program.maxStack + 1];
+        int sp = -1;  // Index of top of stack
+        int pc = 0;  // Index of next instruction
+
+        while (true) {
+            switch (code[pc++]) {
+                case Opcode.CONST:
+                    stack[++sp] = constants[code[pc++]];
+                    break;
+                case Opcode.LOAD:
+                    stack[++sp] = frame[code[pc++]];
+                    break;
+                case Opcode.STORE:
+                    frame[code[pc++]] = stack[sp--];
+                    break;
+                case Opcode.ADD:
+                    sp--;
+                    stack[sp] = stack[sp] + stack[sp + 1];
+                    break;
+                case Opcode.SUB:
+                    sp--;
+                    stack[sp] = stack[sp] - stack[sp + 1];
+                    break;
+                case Opcode.MUL:
+                    sp--;
+                    stack[sp] = stack[sp] * stack[sp + 1];
+                    break;
+                case Opcode.NEG:
+                    stack[sp] = -stack[sp];
+                    break;
+                case Opcode.HALT:
+                    return;
+                default:
+                    throw new RuntimeException("Invalid opcode " + code[pc - 1]);
+            }
+        }
+    }
+
+    // Returns value held in given slot after run()
+    public int getValue(int slot) {
+        return frame[slot];
+    }
+
+    // Returns frame itself, for callers that take ownership of the values once the machine is done
+    int[] getFrame() {
+        return frame;
+    }
+
+    // Runs the program and prints out values of all variables, in the same order as Interpreter.interpret
+    public void interpret() {
+        run();
+
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < frame.length; slot++) {
+            symbolTable.define(program.slotNames[slot], frame[slot]);
+        }
+        VariableWriter.write(symbolTable, System.out);
+    }
+}
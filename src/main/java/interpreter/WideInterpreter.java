@@ -0,0 +1,219 @@
+package interpreter;
+
+import java.math.BigInteger;
+
+// Interprets AST without wrapping on overflow. Values stay plain ints until an operation overflows, then only
+// that value is promoted to Long and, if that overflows too, to BigInteger. Results that fit a narrower type
+// again are narrowed back, so later operations on them return to the int path. Literals beyond int range come
+// from a Parser with wide literals enabled. The Optimizer folds with int wrap-around, so trees run here must
+// not have been optimized
+public class WideInterpreter {
+    private AST tree;  // Root of AST
+    private SemanticAnalyzer analyzer;  // Semantic analyzer
+    private int[] frame;  // Values that fit in an int, indexed by slot
+    private Number[] wideFrame;  // A non-null entry replaces the int in frame, null until a value is promoted
+    // Set by eval when the value it returns doesn't fit in an int, the int it returns is then meaningless.
+    // Keeps the int path free of boxing
+    private Number wide;
+    private int promotionCount = 0;  // Operations whose result left int range
+
+    // Constructor takes in AST and semantic analyzer
+    public WideInterpreter(AST tree, SemanticAnalyzer analyzer) {
+        this.tree = tree;
+        this.analyzer = analyzer;
+    }
+
+    // Runs semantic analyzer and then interpreter, without printing anything
+    public void execute() {
+        analyzer.visit(tree);
+        frame = new int[analyzer.getSlotCount()];
+        wideFrame = null;
+        promotionCount = 0;
+        visit(tree);
+    }
+
+    // Entry point for interpretation process. Executes the program and prints out its variables
+    public void interpret() {
+        execute();
+        VariableWriter.write(getSymbolTable(), System.out);
+    }
+
+    // Rebuilds name/value table from slots and returns it
+    public SymbolTable getSymbolTable() {
+        SymbolTable symbolTable = new SymbolTable();
+        for (int slot = 0; slot < frame.length; slot++) {
+            if (wideFrame != null && wideFrame[slot] != null) {
+                symbolTable.define(analyzer.getSlotName(slot), wideFrame[slot]);
+            } else {
+                symbolTable.define(analyzer.getSlotName(slot), frame[slot]);
+            }
+        }
+        return symbolTable;
+    }
+
+    // Returns number of operations whose result didn't fit in an int in the last run
+    public int getPromotionCount() {
+        return promotionCount;
+    }
+
+    // Visits statements. Expressions go through eval
+    private void visit(AST node) {
+        if (node instanceof Compound) {
+            for (AST child : ((Compound) node).children) {
+                visit(child);
+            }
+        } else if (node instanceof Assign) {
+            Assign assign = (Assign) node;
+            int value = eval(assign.right);
+            int slot = assign.left.slot;
+            if (wide == null) {
+                frame[slot] = value;
+                if (wideFrame != null) {
+                    wideFrame[slot] = null;
+                }
+            } else {
+                if (wideFrame == null) {
+                    wideFrame = new Number[frame.length];
+                }
+                wideFrame[slot] = wide;
+            }
+        }
+    }
+
+    // Evaluates expression. Returns its value if it fits in an int and sets wide to null, otherwise sets wide
+    private int eval(AST node) {
+        if (node instanceof Num) {
+            wide = null;
+            return ((Num) node).value;
+        } else if (node instanceof Var) {
+            int slot = ((Var) node).slot;
+            wide = wideFrame != null ? wideFrame[slot] : null;
+            return frame[slot];
+        } else if (node instanceof BinOp) {
+            BinOp binOp = (BinOp) node;
+            int left = eval(binOp.left);
+            Number wideLeft = wide;
+            int right = eval(binOp.right);
+            Number wideRight = wide;
+            if (wideLeft == null && wideRight == null) {
+                return intOp(binOp.op.type, left, right);
+            }
+            return wideResult(wideOp(binOp.op.type, wideLeft != null ? wideLeft : left,
+                    wideRight != null ? wideRight : right));
+        } else if (node instanceof UnaryOp) {
+            UnaryOp unaryOp = (UnaryOp) node;
+            int value = eval(unaryOp.expr);
+            if (unaryOp.op.type == TokenType.PLUS) {
+                return value;
+            } else if (wide != null) {
+                return wideResult(wideOp(TokenType.MINUS, 0, wide));
+            }
+            return intOp(TokenType.MINUS, 0, value);
+        } else if (node instanceof WideNum) {
+            wide = ((WideNum) node).value;
+            return 0;
+        }
+        throw new RuntimeException("Invalid node type");
+    }
+
+    // int arithmetic with the overflow checks of Math.addExact, subtractExact and multiplyExact, but promoting
+    // instead of throwing
+    private int intOp(TokenType op, int left, int right) {
+        int result;
+        if (op == TokenType.PLUS) {
+            result = left + right;
+            if (((left ^ result) & (right ^ result)) >= 0) {
+                wide = null;
+                return result;
+            }
+            return promote((long) left + right);
+        } else if (op == TokenType.MINUS) {
+            result = left - right;
+            if (((left ^ right) & (left ^ result)) >= 0) {
+                wide = null;
+                return result;
+            }
+            return promote((long) left - right);
+        } else if (op == TokenType.MUL) {
+            long product = (long) left * right;
+            if ((int) product == product) {
+                wide = null;
+                return (int) product;
+            }
+            return promote(product);
+        }
+        throw new RuntimeException("Invalid operator");
+    }
+
+    private int promote(long value) {
+        promotionCount++;
+        wide = value;
+        return 0;
+    }
+
+    // Hands a wide result back through eval's int-or-wide convention
+    private int wideResult(Number value) {
+        if (value instanceof Integer) {
+            wide = null;
+            return value.intValue();
+        }
+        wide = value;
+        return 0;
+    }
+
+    // Arithmetic on values of which at least one is wider than int. Stays in long while it doesn't overflow
+    private Number wideOp(TokenType op, Number left, Number right) {
+        if (!(left instanceof BigInteger) && !(right instanceof BigInteger)) {
+            long a = left.longValue();
+            long b = right.longValue();
+            long result;
+            if (op == TokenType.PLUS) {
+                result = a + b;
+                if (((a ^ result) & (b ^ result)) >= 0) {
+                    return normalize(result);
+                }
+            } else if (op == TokenType.MINUS) {
+                result = a - b;
+                if (((a ^ b) & (a ^ result)) >= 0) {
+                    return normalize(result);
+                }
+            } else if (op == TokenType.MUL) {
+                result = a * b;
+                if (Math.multiplyHigh(a, b) == (result >> 63)) {
+                    return normalize(result);
+                }
+            }
+            promotionCount++;
+        }
+        BigInteger a = toBigInteger(left);
+        BigInteger b = toBigInteger(right);
+        if (op == TokenType.PLUS) {
+            return normalize(a.add(b));
+        } else if (op == TokenType.MINUS) {
+            return normalize(a.subtract(b));
+        } else if (op == TokenType.MUL) {
+            return normalize(a.multiply(b));
+        }
+        throw new RuntimeException("Invalid operator");
+    }
+
+    private static BigInteger toBigInteger(Number value) {
+        return value instanceof BigInteger ? (BigInteger) value : BigInteger.valueOf(value.longValue());
+    }
+
+    // Returns value as the narrowest of Integer and Long that holds it
+    static Number normalize(long value) {
+        if ((int) value == value) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    // Returns value as the narrowest of Integer, Long and BigInteger that holds it
+    static Number normalize(BigInteger value) {
+        if (value.bitLength() < 64) {
+            return normalize(value.longValue());
+        }
+        return value;
+    }
+}
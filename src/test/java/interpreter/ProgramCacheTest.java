@@ -0,0 +1,169 @@
+package interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks that programs round-trip through the disk tier and that a file failing any of its checks is discarded
+// and recompiled instead of run
+class ProgramCacheTest {
+    private static final String SOURCE = "x = 2; y = x * 3 + 1;";
+    // Offsets in the file header, see ProgramCache
+    private static final int PAYLOAD_LENGTH_OFFSET = 40;
+    private static final int CHECKSUM_OFFSET = 44;
+    private static final int HEADER_LENGTH = 52;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void warmCacheLoadsProgramFromDisk() throws IOException {
+        ProgramCache cold = new ProgramCache(directory, 1 << 20);
+        assertEquals(7, cold.get(SOURCE).execute().get("y"));
+        assertEquals(1, cold.getMisses());
+
+        ProgramCache warm = new ProgramCache(directory, 1 << 20);
+        ProgramResult result = warm.get(SOURCE).execute();
+        assertEquals(2, result.get("x"));
+        assertEquals(7, result.get("y"));
+        assertEquals(1, warm.getDiskHits());
+        assertEquals(0, warm.getMisses());
+    }
+
+    @Test
+    void truncatedFileIsRecompiled() throws IOException {
+        Path file = write(SOURCE);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertRecompiled(SOURCE, 7);
+    }
+
+    @Test
+    void fileShorterThanHeaderIsRecompiled() throws IOException {
+        Path file = write(SOURCE);
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), HEADER_LENGTH - 1));
+        assertRecompiled(SOURCE, 7);
+    }
+
+    @Test
+    void flippedPayloadByteIsRecompiled() throws IOException {
+        Path file = write(SOURCE);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        assertRecompiled(SOURCE, 7);
+    }
+
+    // A file renamed to another program's key holds the hash of the program it was compiled from
+    @Test
+    void fileOfAnotherSourceIsRecompiled() throws IOException {
+        Path file = write(SOURCE);
+        Path other = write("x = 5; y = x;");
+        Files.copy(other, file, StandardCopyOption.REPLACE_EXISTING);
+        assertRecompiled(SOURCE, 7);
+    }
+
+    // Keeps the rejection tests below honest: a payload written by this test is accepted when it is valid
+    @Test
+    void validHandWrittenBytecodeIsRun() throws IOException {
+        Path file = write(SOURCE);
+        rewritePayload(file, 1, new int[] {Opcode.CONST, 0, Opcode.STORE, 0, Opcode.HALT}, new int[] {5});
+        ProgramCache cache = new ProgramCache(directory, 1 << 20);
+        assertEquals(5, cache.get(SOURCE).execute().get("x"));
+        assertEquals(1, cache.getDiskHits());
+        assertEquals(0, cache.getDiscarded());
+    }
+
+    @Test
+    void bytecodeUnderflowingStackIsRecompiled() throws IOException {
+        Path file = write(SOURCE);
+        rewritePayload(file, 1, new int[] {Opcode.CONST, 0, Opcode.ADD, Opcode.STORE, 0, Opcode.HALT},
+                new int[] {5});
+        assertRecompiled(SOURCE, 7);
+    }
+
+    @Test
+    void bytecodeExceedingMaxStackIsRecompiled() throws IOException {
+        Path file = write(SOURCE);
+        rewritePayload(file, 1, new int[] {Opcode.CONST, 0, Opcode.CONST, 0, Opcode.ADD, Opcode.STORE, 0,
+                Opcode.HALT}, new int[] {5});
+        assertRecompiled(SOURCE, 7);
+    }
+
+    @Test
+    void bytecodeWithOperandOutOfRangeIsRecompiled() throws IOException {
+        Path file = write(SOURCE);
+        rewritePayload(file, 1, new int[] {Opcode.CONST, 1, Opcode.STORE, 0, Opcode.HALT}, new int[] {5});
+        assertRecompiled(SOURCE, 7);
+    }
+
+    // Compiles source into the disk tier and returns its file
+    private Path write(String source) throws IOException {
+        Path[] before = files();
+        new ProgramCache(directory, 1 << 20).get(source);
+        Path[] after = files();
+        for (Path file : after) {
+            if (!Arrays.asList(before).contains(file)) {
+                return file;
+            }
+        }
+        throw new AssertionError("No file written for " + source);
+    }
+
+    private Path[] files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toArray(Path[]::new);
+        }
+    }
+
+    // A fresh cache must discard the file, compile source again and replace the file with a valid one
+    private void assertRecompiled(String source, int y) throws IOException {
+        ProgramCache cache = new ProgramCache(directory, 1 << 20);
+        assertEquals(y, cache.get(source).execute().get("y"));
+        assertEquals(1, cache.getDiscarded());
+        assertEquals(0, cache.getDiskHits());
+        assertEquals(1, cache.getMisses());
+
+        ProgramCache warm = new ProgramCache(directory, 1 << 20);
+        assertEquals(y, warm.get(source).execute().get("y"));
+        assertEquals(1, warm.getDiskHits());
+    }
+
+    // Replaces payload of file with the given bytecode over the slots x and y, keeping its header valid, so
+    // only the bytecode checks can reject it
+    private static void rewritePayload(Path file, int maxStack, int[] code, int[] constants) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(4 * (4 + code.length + constants.length) + 2 * (4 + 1));
+        payload.putInt(maxStack);
+        payload.putInt(code.length);
+        for (int instruction : code) {
+            payload.putInt(instruction);
+        }
+        payload.putInt(constants.length);
+        for (int constant : constants) {
+            payload.putInt(constant);
+        }
+        payload.putInt(2);
+        payload.putInt(1).put((byte) 'x');
+        payload.putInt(1).put((byte) 'y');
+        payload.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_LENGTH + payload.remaining());
+        bytes.put(Files.readAllBytes(file), 0, HEADER_LENGTH);
+        bytes.putInt(PAYLOAD_LENGTH_OFFSET, payload.remaining());
+        bytes.putLong(CHECKSUM_OFFSET, crc.getValue());
+        bytes.put(payload);
+        Files.write(file, bytes.array());
+    }
+}
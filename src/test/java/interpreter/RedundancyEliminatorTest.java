@@ -0,0 +1,101 @@
+package interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Checks the dead store and common subexpression rewrites, and that they never change what a program prints
+class RedundancyEliminatorTest {
+    @Test
+    void removesStoreOverwrittenBeforeAnyRead() {
+        RedundancyEliminator eliminator = new RedundancyEliminator();
+        assertEquals("x = 2\ny = 5\n", run("x = 1; y = 5; x = 2;", eliminator));
+        assertEquals(1, eliminator.getRemovedStoreCount());
+    }
+
+    @Test
+    void keepsStoreReadBeforeItIsOverwritten() {
+        RedundancyEliminator eliminator = new RedundancyEliminator();
+        assertEquals("x = 2\ny = 1\n", run("x = 1; y = x; x = 2;", eliminator));
+        assertEquals(0, eliminator.getRemovedStoreCount());
+    }
+
+    @Test
+    void computesRepeatedSubexpressionOnce() {
+        RedundancyEliminator eliminator = new RedundancyEliminator();
+        String output = run("a = 3; y = (a * a + a) * 2; z = (a * a + a) * 3;", eliminator);
+        assertEquals("a = 3\ny = 24\nz = 36\n", output);
+        assertEquals(1, eliminator.getTempCount());
+        assertEquals(1, eliminator.getReusedCount());
+        assertFalse(output.contains(RedundancyEliminator.TEMP_PREFIX));
+    }
+
+    @Test
+    void doesNotReuseSubexpressionAfterItsVariableChanged() {
+        RedundancyEliminator eliminator = new RedundancyEliminator();
+        assertEquals("a = 4\ny = 12\nz = 20\n", run("a = 3; y = a * a + a; a = 4; z = a * a + a;", eliminator));
+        assertEquals(0, eliminator.getReusedCount());
+    }
+
+    // Random programs over few variables, so stores are often dead and subexpressions often repeat
+    @Test
+    void randomProgramsPrintTheSameWithAndWithoutRewrites() {
+        Random random = new Random(16);
+        int removed = 0;
+        int reused = 0;
+        for (int i = 0; i < 500; i++) {
+            StringBuilder source = new StringBuilder();
+            int statements = 1 + random.nextInt(30);
+            for (int s = 0; s < statements; s++) {
+                source.append('v').append(s == 0 ? 0 : random.nextInt(4)).append(" = ").append(expression(random, s, 3))
+                        .append("; ");
+            }
+            String text = source.toString();
+            RedundancyEliminator eliminator = new RedundancyEliminator();
+            assertEquals(run(text, null), run(text, eliminator), text);
+            removed += eliminator.getRemovedStoreCount();
+            reused += eliminator.getReusedCount();
+        }
+        // Both rewrites must actually have been exercised
+        assertTrue(removed > 0);
+        assertTrue(reused > 0);
+    }
+
+    // Reads only variables assigned before, v0 always is by statement 0
+    private static String expression(Random random, int statement, int depth) {
+        int choice = random.nextInt(depth == 0 ? 2 : 5);
+        if (choice == 0 || statement == 0) {
+            return choice == 0 ? Integer.toString(random.nextInt(10)) : Integer.toString(random.nextInt(100));
+        } else if (choice == 1) {
+            return "v0";
+        } else if (choice == 2) {
+            return "-(" + expression(random, statement, depth - 1) + ")";
+        }
+        String op = choice == 3 ? " + " : random.nextBoolean() ? " * " : " - ";
+        return "(" + expression(random, statement, depth - 1) + op + expression(random, statement, depth - 1) + ")";
+    }
+
+    // Runs source the way Main does, with the dataflow pass when an eliminator is given, and returns its output
+    private static String run(String source, RedundancyEliminator eliminator) {
+        AST tree = new Optimizer().optimize(new Parser(new Lexer(source)).program());
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.visit(tree);
+        if (eliminator != null) {
+            tree = eliminator.optimize(tree);
+            analyzer = new SemanticAnalyzer();
+            analyzer.visit(tree);
+        }
+        Interpreter interpreter = new Interpreter(tree, analyzer);
+        interpreter.execute();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VariableWriter.write(interpreter.getSymbolTable(), new PrintStream(out, true, StandardCharsets.UTF_8));
+        return out.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n");
+    }
+}
@@ -0,0 +1,123 @@
+package interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks that a run continues from a snapshot with the state it was saved with, and that a snapshot failing
+// any of its checks is refused instead of resumed
+class ResumableInterpreterTest {
+    private static final String SOURCE = "x = 3; y = x * 2; z = y + x; x = z * 10;";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumedRunContinuesFromSavedState() throws IOException {
+        Path file = save(SOURCE, 2);
+        ResumableInterpreter resumed = interpreter(SOURCE);
+        resumed.resume(file);
+        assertEquals(2, resumed.getPosition());
+        assertTrue(resumed.run(Long.MAX_VALUE));
+        SymbolTable symbols = resumed.getSymbolTable();
+        assertEquals(90, symbols.lookup("x"));
+        assertEquals(6, symbols.lookup("y"));
+        assertEquals(9, symbols.lookup("z"));
+    }
+
+    // Writes to a resumed frame stay private to the process, so the same snapshot resumes again unchanged
+    @Test
+    void resumingLeavesSnapshotUnchanged() throws IOException {
+        Path file = save(SOURCE, 2);
+        byte[] saved = Files.readAllBytes(file);
+        ResumableInterpreter first = interpreter(SOURCE);
+        first.resume(file);
+        first.run(Long.MAX_VALUE);
+        assertTrue(Arrays.equals(saved, Files.readAllBytes(file)));
+
+        ResumableInterpreter second = interpreter(SOURCE);
+        second.resume(file);
+        assertFalse(second.run(1));
+        assertEquals(9, second.getSymbolTable().lookup("z"));
+    }
+
+    @Test
+    void truncatedSnapshotIsRefused() throws IOException {
+        Path file = save(SOURCE, 2);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertInvalid(file);
+        Files.write(file, Arrays.copyOf(bytes, Snapshot.HEADER_LENGTH - 1));
+        assertInvalid(file);
+    }
+
+    @Test
+    void flippedValueByteIsRefused() throws IOException {
+        assertInvalid(flip(save(SOURCE, 2), Snapshot.HEADER_LENGTH));
+    }
+
+    @Test
+    void flippedNameByteIsRefused() throws IOException {
+        Path file = save(SOURCE, 2);
+        assertInvalid(flip(file, (int) Files.size(file) - 1));
+    }
+
+    // Position lives in the header, which the checksum covers too
+    @Test
+    void flippedPositionByteIsRefused() throws IOException {
+        assertInvalid(flip(save(SOURCE, 2), 40));
+    }
+
+    // Same variables in the same order, but the snapshot was taken of different source text
+    @Test
+    void snapshotOfAnotherSourceIsRefused() throws IOException {
+        Path file = save(SOURCE, 2);
+        ResumableInterpreter other = interpreter("x = 4; y = x * 2; z = y + x; x = z * 10;");
+        InterpreterException e = assertThrows(InterpreterException.class, () -> other.resume(file));
+        assertEquals("Error: Snapshot " + file + " was taken of a different program", e.getMessage());
+    }
+
+    @Test
+    void snapshotWithOtherVariablesIsRefused() throws IOException {
+        Path file = save(SOURCE, 2);
+        assertThrows(InterpreterException.class, () -> interpreter("x = 3; y = x * 2;").resume(file));
+    }
+
+    // Runs statements of source up to position, saves there and returns the snapshot file
+    private Path save(String source, long position) throws IOException {
+        Path file = directory.resolve("state.snap");
+        ResumableInterpreter interpreter = interpreter(source);
+        interpreter.setSnapshot(file, 0);
+        assertFalse(interpreter.run(position));
+        interpreter.save();
+        return file;
+    }
+
+    private static ResumableInterpreter interpreter(String source) {
+        AST tree = new Optimizer().optimize(new Parser(new Lexer(source)).program());
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        analyzer.visit(tree);
+        return new ResumableInterpreter(tree, analyzer, source);
+    }
+
+    private static Path flip(Path file, int offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[offset] ^= 1;
+        Files.write(file, bytes);
+        return file;
+    }
+
+    private void assertInvalid(Path file) {
+        InterpreterException e = assertThrows(InterpreterException.class, () -> interpreter(SOURCE).resume(file));
+        assertEquals("Error: Invalid snapshot " + file, e.getMessage());
+    }
+}
@@ -0,0 +1,136 @@
+package interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+// Checks that statements on a shared store are atomic and that snapshots are consistent, also while other
+// threads write and add names
+class SharedSymbolStoreTest {
+    private static final int THREADS = 4;
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        SharedSymbolStore store = new SharedSymbolStore();
+        run("c = 0;", store);
+        String increments = "c = c + 1; ".repeat(5000);
+        runConcurrently(THREADS, () -> run(increments, store));
+        assertEquals(THREADS * 5000, store.snapshot().lookup("c"));
+    }
+
+    // Every program increments x before y, so a snapshot that saw half a statement could show y ahead of x
+    @Test
+    void snapshotsNeverSeeLaterWritesWithoutEarlierOnes() throws Exception {
+        SharedSymbolStore store = new SharedSymbolStore();
+        run("x = 0; y = 0;", store);
+        String increments = "x = x + 1; y = y + 1; ".repeat(5000);
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService readers = Executors.newSingleThreadExecutor();
+        Future<Integer> inconsistent = readers.submit(() -> {
+            int count = 0;
+            while (!done.get()) {
+                SymbolTable snapshot = store.snapshot();
+                if (snapshot.lookup("x") < snapshot.lookup("y")) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        try {
+            runConcurrently(THREADS, () -> run(increments, store));
+        } finally {
+            done.set(true);
+            readers.shutdown();
+        }
+        assertEquals(0, inconsistent.get());
+        assertEquals(THREADS * 5000, store.snapshot().lookup("y"));
+    }
+
+    // Regression: a snapshot racing with the first name of a new chunk read a count beyond the chunks it held
+    @Test
+    void snapshotWhileNamesAreAddedAcrossChunks() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            SharedSymbolStore store = new SharedSymbolStore();
+            AtomicBoolean done = new AtomicBoolean(false);
+            AtomicInteger writers = new AtomicInteger(0);
+            ExecutorService readers = Executors.newFixedThreadPool(2);
+            List<Future<?>> snapshots = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                snapshots.add(readers.submit(() -> {
+                    int last = 0;
+                    while (!done.get()) {
+                        int size = store.snapshot().getAllVariableNames().size();
+                        assertTrue(size >= last);
+                        last = size;
+                    }
+                    return null;
+                }));
+            }
+            try {
+                runConcurrently(2, () -> {
+                    String prefix = "n" + writers.getAndIncrement() + "x";
+                    for (int i = 0; i < 5000; i++) {
+                        int slot = store.slot(prefix + i);
+                        long token = store.lock(new int[] {slot}, 1);
+                        try {
+                            store.set(slot, i);
+                        } finally {
+                            store.unlock(token);
+                        }
+                    }
+                });
+            } finally {
+                done.set(true);
+                readers.shutdown();
+            }
+            for (Future<?> snapshot : snapshots) {
+                snapshot.get();
+            }
+            assertEquals(10000, store.snapshot().getAllVariableNames().size());
+        }
+    }
+
+    @Test
+    void readsOfUndefinedGlobalsFailAndStayHidden() {
+        SharedSymbolStore store = new SharedSymbolStore();
+        SemanticAnalyzerException e = assertThrows(SemanticAnalyzerException.class, () -> run("q = missing + 1;", store));
+        assertEquals("Error: Variable not found missing", e.getMessage());
+        // The statement locked a cell for its target and its read, neither was written
+        assertTrue(store.find("missing") >= 0);
+        assertFalse(store.isDefined(store.find("q")));
+        assertNull(store.snapshot().lookup("q"));
+        assertTrue(store.snapshot().getAllVariableNames().isEmpty());
+    }
+
+    private static void run(String source, SymbolStore store) {
+        Parser parser = new Parser(new Lexer(source));
+        parser.setIterative(true);
+        new IterativeInterpreter(parser.program(), store).execute();
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(task));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package interpreter;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Column operations on the Vector API, at the widest int shape the CPU supports. Only loaded by
+// ColumnarEvaluator after it has checked that jdk.incubator.vector is in the module graph
+class VectorKernels implements ColumnKernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(int[] a, int[] b, int[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).add(IntVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void addScalar(int[] a, int scalar, int[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).add(scalar).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = a[i] + scalar;
+        }
+    }
+
+    @Override
+    public void sub(int[] a, int[] b, int[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).sub(IntVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    public void subScalar(int[] a, int scalar, int[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).sub(scalar).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = a[i] - scalar;
+        }
+    }
+
+    @Override
+    public void scalarSub(int scalar, int[] a, int[] out, int n) {
+        IntVector broadcast = IntVector.broadcast(SPECIES, scalar);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            broadcast.sub(IntVector.fromArray(SPECIES, a, i)).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = scalar - a[i];
+        }
+    }
+
+    @Override
+    public void mul(int[] a, int[] b, int[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).mul(IntVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+
+    @Override
+    public void mulScalar(int[] a, int scalar, int[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).mul(scalar).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = a[i] * scalar;
+        }
+    }
+
+    @Override
+    public void neg(int[] a, int[] out, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).neg().intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = -a[i];
+        }
+    }
+}